@@ -0,0 +1,63 @@
+package com.example.lab6.benchmark;
+
+import com.example.lab6.aspect.LoggingAspect;
+import com.example.lab6.aspect.RequestMetricsAspect;
+import com.example.lab6.metrics.RequestMetrics;
+import com.example.lab6.model.Location;
+import com.example.lab6.service.LocationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache-hit {@link LocationService#getById} called directly and through a proxy advised by
+ * {@link LoggingAspect} and {@link RequestMetricsAspect}, as Spring wires them. Logging runs at INFO, so the
+ * service advice checks its level and the metrics advice records the call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AspectOverheadBenchmark {
+
+    private static final long ID = 1;
+
+    private LocationService plain;
+    private LocationService advised;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.quietLogging();
+        plain = BenchmarkFixtures.locationService(BenchmarkFixtures.cache(16), 1);
+        plain.getById(ID);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(plain);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new LoggingAspect("full", 1.0, "", 512));
+        factory.addAspect(new RequestMetricsAspect(new RequestMetrics()));
+        advised = factory.getProxy();
+    }
+
+    @Benchmark
+    public Optional<Location> plain() {
+        return plain.getById(ID);
+    }
+
+    @Benchmark
+    public Optional<Location> aspectWrapped() {
+        return advised.getById(ID);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.lab6.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.LocationRepository;
+import com.example.lab6.service.LocationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Data and collaborators shared by the benchmarks. Repositories are in-memory proxies, so the numbers cover
+ * the application code and not the database.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Configured like Spring Boot's default mapper.
+     */
+    static ObjectMapper objectMapper() {
+        return JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    /**
+     * Without Spring, logback would print DEBUG to the console. Events at INFO and above are formatted by an
+     * in-memory appender instead, so logging cost is measured without console I/O.
+     */
+    static void quietLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        AppenderBase<ILoggingEvent> formatting = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                event.getFormattedMessage();
+            }
+        };
+        formatting.setContext(context);
+        formatting.start();
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(Level.INFO);
+        root.addAppender(formatting);
+    }
+
+    static <V> BoundedCache<V> cache(int maxSize) {
+        return new BoundedCache<>("benchmark", maxSize, Duration.ofHours(1));
+    }
+
+    /**
+     * A service reading single locations: the repository answers {@code findById} for ids 1..{@code rows}.
+     */
+    static LocationService locationService(BoundedCache<List<Location>> locationCache, int rows) {
+        LocationRepository repository = (LocationRepository) Proxy.newProxyInstance(
+                BenchmarkFixtures.class.getClassLoader(), new Class<?>[]{LocationRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    long id = (Long) args[0];
+                    return id >= 1 && id <= rows ? Optional.of(location(id)) : Optional.empty();
+                });
+        return new LocationService(repository, null, locationCache, cache(1), null, null, null, null);
+    }
+
+    static Location location(long id) {
+        Location location = new Location();
+        location.setId(id);
+        location.setVersion(0L);
+        location.setName("Location " + id);
+        location.setCountry("Belarus");
+        return location;
+    }
+
+    static SunriseSunset sunriseSunset(long id) {
+        SunriseSunset sunriseSunset = new SunriseSunset();
+        sunriseSunset.setId(id);
+        sunriseSunset.setVersion(0L);
+        sunriseSunset.setLatitude(54.3 + (id % 1000) / 1000.0);
+        sunriseSunset.setLongitude(30.24);
+        sunriseSunset.setDate(LocalDate.of(2025, 1, 1).plusDays(id % 365));
+        sunriseSunset.setSunrise(LocalTime.of(5, 0).plusMinutes(id % 120));
+        sunriseSunset.setSunset(LocalTime.of(18, 0).plusMinutes(id % 120));
+        return sunriseSunset;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.lab6.benchmark;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CacheTags;
+import com.example.lab6.model.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit and miss paths of {@link BoundedCache} as the services use it: lists keyed by string and tagged with the
+ * ids they contain. The miss path evicts, misses and stores again, which is what a read after a write does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundedCacheBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private BoundedCache<List<Location>> cache;
+    private String[] keys;
+    private List<Location>[] values;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            next = next + 1 == bound ? 0 : next + 1;
+            return next;
+        }
+    }
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        cache = BenchmarkFixtures.cache(size);
+        keys = new String[size];
+        values = new List[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = "location_" + i;
+            values[i] = List.of(BenchmarkFixtures.location(i));
+            cache.put(keys[i], values[i], List.of(CacheTags.location((long) i)));
+        }
+    }
+
+    @Benchmark
+    public List<Location> hit(Cursor cursor) {
+        return cache.get(keys[cursor.next(size)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Location> hitContended(Cursor cursor) {
+        return cache.get(keys[cursor.next(size)]);
+    }
+
+    @Benchmark
+    public List<Location> missAndPut(Cursor cursor) {
+        int i = cursor.next(size);
+        cache.invalidateTag(CacheTags.location((long) i));
+        List<Location> cached = cache.get(keys[i]);
+        if (cached == null) {
+            cache.put(keys[i], values[i], List.of(CacheTags.location((long) i)));
+            return values[i];
+        }
+        return cached;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.lab6.benchmark;
+
+import com.example.lab6.dto.LocationView;
+import com.example.lab6.dto.SunriseSunsetView;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of entity graphs as the by-id and by-date endpoints return them, and of the
+ * {@link LocationView} read model for the same locations, with link ids only and with
+ * {@code expand=sunriseSunsets}. Each location links {@value #LINKS} sunrise/sunset
+ * records and each record links {@value #LINKS} locations; the graph is cut one level down, where the linked
+ * entities have no links of their own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntitySerializationBenchmark {
+
+    private static final int LINKS = 3;
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private List<Location> locations;
+    private List<SunriseSunset> sunriseSunsets;
+    private List<LocationView> locationViews;
+    private List<LocationView> expandedLocationViews;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        locations = new ArrayList<>(rows);
+        sunriseSunsets = new ArrayList<>(rows);
+        locationViews = new ArrayList<>(rows);
+        expandedLocationViews = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            Location location = BenchmarkFixtures.location(id);
+            SunriseSunset sunriseSunset = BenchmarkFixtures.sunriseSunset(id);
+            List<Long> linkedIds = new ArrayList<>(LINKS);
+            List<SunriseSunsetView> linked = new ArrayList<>(LINKS);
+            for (long link = 0; link < LINKS; link++) {
+                long linkedId = (id + link) % rows + 1;
+                SunriseSunset linkedRecord = BenchmarkFixtures.sunriseSunset(linkedId);
+                location.getSunriseSunsets().add(linkedRecord);
+                sunriseSunset.getLocations().add(BenchmarkFixtures.location(linkedId));
+                linkedIds.add(linkedId);
+                linked.add(new SunriseSunsetView(linkedRecord.getId(), linkedRecord.getLatitude(),
+                        linkedRecord.getLongitude(), linkedRecord.getDate(), linkedRecord.getSunrise(),
+                        linkedRecord.getSunset()));
+            }
+            locations.add(location);
+            sunriseSunsets.add(sunriseSunset);
+            locationViews.add(new LocationView(location.getId(), location.getName(), location.getCountry(),
+                    linkedIds, null));
+            expandedLocationViews.add(new LocationView(location.getId(), location.getName(),
+                    location.getCountry(), linkedIds, linked));
+        }
+    }
+
+    @Benchmark
+    public byte[] locationEntities() throws Exception {
+        return objectMapper.writeValueAsBytes(locations);
+    }
+
+    @Benchmark
+    public byte[] sunriseSunsetEntities() throws Exception {
+        return objectMapper.writeValueAsBytes(sunriseSunsets);
+    }
+
+    @Benchmark
+    public byte[] locationViews() throws Exception {
+        return objectMapper.writeValueAsBytes(locationViews);
+    }
+
+    @Benchmark
+    public byte[] expandedLocationViews() throws Exception {
+        return objectMapper.writeValueAsBytes(expandedLocationViews);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.lab6.benchmark;
+
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.LocationRepository;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import com.example.lab6.service.CacheInvalidator;
+import com.example.lab6.service.ChangeFeed;
+import com.example.lab6.service.ChangeStamps;
+import com.example.lab6.service.LocationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The previous per-item {@code findById} bulk path against {@link LocationService#bulkCreateOrUpdate} on a
+ * 10k-item payload (half updates of existing rows, half new rows). Repositories are in-memory fakes that wait
+ * {@value #ROUND_TRIP_MICROS} us for each SQL statement Hibernate would send, so the time is dominated by
+ * round trips rather than database work. Inserts and dirty-checked updates cost one statement per JDBC batch
+ * of {@value #JDBC_BATCH_SIZE}, sequence calls one per {@value #SEQUENCE_ALLOCATION} ids. Each iteration runs
+ * once against a freshly seeded database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LocationBulkBenchmark {
+
+    private static final int ITEMS = 10_000;
+    private static final int EXISTING = ITEMS / 2;
+    private static final int CHUNK_SIZE = 1000;
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final int SEQUENCE_ALLOCATION = 50;
+    private static final long ROUND_TRIP_MICROS = 200;
+
+    private FakeDatabase db;
+    private LocationService service;
+    private List<Location> payload;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws ReflectiveOperationException {
+        BenchmarkFixtures.quietLogging();
+        db = new FakeDatabase();
+        service = new LocationService(db.locationRepository(), db.sunriseSunsetRepository(),
+                BenchmarkFixtures.cache(1000), BenchmarkFixtures.cache(1000),
+                new CacheInvalidator(BenchmarkFixtures.cache(1000), BenchmarkFixtures.cache(1000),
+                        BenchmarkFixtures.cache(1000), BenchmarkFixtures.cache(1000), BenchmarkFixtures.cache(1000),
+                        new ChangeStamps()),
+                new ChangeFeed(1024, 256, 10), new TransactionTemplate(db.transactionManager()), null);
+        Field chunkSize = LocationService.class.getDeclaredField("bulkChunkSize");
+        chunkSize.setAccessible(true);
+        chunkSize.setInt(service, CHUNK_SIZE);
+        payload = payload();
+    }
+
+    /**
+     * The bulk path as it was before: one entity-graph {@code findById} per item, including {@code 0L}
+     * for new rows, then a single {@code saveAll} in one transaction.
+     */
+    @Benchmark
+    public long findByIdPerItem() {
+        LocationRepository repository = db.locationRepository();
+        new TransactionTemplate(db.transactionManager()).executeWithoutResult(status -> {
+            List<Location> processed = new ArrayList<>();
+            for (Location location : payload) {
+                Optional<Location> existing = repository.findById(location.getId() != null ? location.getId() : 0L);
+                if (existing.isPresent()) {
+                    existing.get().setName(location.getName());
+                    existing.get().setCountry(location.getCountry());
+                    processed.add(existing.get());
+                } else {
+                    processed.add(location);
+                }
+            }
+            repository.saveAll(processed);
+        });
+        return db.statements;
+    }
+
+    @Benchmark
+    public long bulkCreateOrUpdate() {
+        service.bulkCreateOrUpdate(payload, List.of(1L));
+        return db.statements;
+    }
+
+    private static List<Location> payload() {
+        List<Location> locations = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            Location location = new Location();
+            if (i < EXISTING) {
+                location.setId((long) i + 1);
+            }
+            location.setName("Location " + i);
+            location.setCountry("Belarus");
+            locations.add(location);
+        }
+        return locations;
+    }
+
+    private static final class FakeDatabase {
+
+        private final Map<Long, Location> rows = new HashMap<>();
+        private final Map<Location, String> loadedNames = new IdentityHashMap<>();
+        private long nextId = EXISTING + 1;
+        private long statements;
+
+        FakeDatabase() {
+            for (long id = 1; id <= EXISTING; id++) {
+                Location location = new Location();
+                location.setId(id);
+                location.setName("Old " + id);
+                location.setCountry("Belarus");
+                rows.put(id, location);
+            }
+        }
+
+        private void roundTrips(long count) {
+            statements += count;
+            for (long i = 0; i < count; i++) {
+                LockSupport.parkNanos(ROUND_TRIP_MICROS * 1000);
+            }
+        }
+
+        private static long batches(long rows, int batchSize) {
+            return (rows + batchSize - 1) / batchSize;
+        }
+
+        private Location load(Location row) {
+            loadedNames.put(row, row.getName());
+            return row;
+        }
+
+        @SuppressWarnings("unchecked")
+        LocationRepository locationRepository() {
+            return (LocationRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{LocationRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "findById" -> {
+                            roundTrips(1);
+                            yield Optional.ofNullable(rows.get((Long) args[0])).map(this::load);
+                        }
+                        case "findAllByIdInOrderById" -> {
+                            roundTrips(1);
+                            List<Location> found = new ArrayList<>();
+                            for (Long id : (Collection<Long>) args[0]) {
+                                Location row = rows.get(id);
+                                if (row != null) {
+                                    found.add(load(row));
+                                }
+                            }
+                            yield found;
+                        }
+                        case "saveAll" -> {
+                            List<Location> saved = new ArrayList<>((Collection<Location>) args[0]);
+                            long inserted = saved.stream().filter(l -> l.getId() == null).count();
+                            roundTrips(batches(inserted, SEQUENCE_ALLOCATION) + batches(inserted, JDBC_BATCH_SIZE));
+                            for (Location location : saved) {
+                                if (location.getId() == null) {
+                                    location.setId(nextId++);
+                                    rows.put(location.getId(), location);
+                                }
+                            }
+                            yield saved;
+                        }
+                        case "flush" -> {
+                            flushUpdates();
+                            yield null;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        SunriseSunsetRepository sunriseSunsetRepository() {
+            return (SunriseSunsetRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{SunriseSunsetRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "findAllById" -> {
+                            roundTrips(1);
+                            SunriseSunset sunriseSunset = new SunriseSunset();
+                            sunriseSunset.setId(1L);
+                            yield List.of(sunriseSunset);
+                        }
+                        case "addLocationLinks" -> {
+                            roundTrips(1);
+                            yield 0;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        PlatformTransactionManager transactionManager() {
+            return (PlatformTransactionManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PlatformTransactionManager.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getTransaction" -> {
+                                return new SimpleTransactionStatus();
+                            }
+                            case "commit" -> {
+                                flushUpdates();
+                                roundTrips(1);
+                            }
+                            case "rollback" -> loadedNames.clear();
+                            default -> throw new UnsupportedOperationException(method.getName());
+                        }
+                        return null;
+                    });
+        }
+
+        /**
+         * Dirty checking: loaded rows whose name changed are sent as batched updates.
+         */
+        private void flushUpdates() {
+            long dirty = loadedNames.entrySet().stream()
+                    .filter(entry -> !entry.getKey().getName().equals(entry.getValue()))
+                    .count();
+            roundTrips(batches(dirty, JDBC_BATCH_SIZE));
+            loadedNames.replaceAll((location, name) -> location.getName());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.lab6.benchmark;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.model.Location;
+import com.example.lab6.service.LocationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LocationService#getById} served from the service cache and through the repository after an eviction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationServiceBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private BoundedCache<List<Location>> locationCache;
+    private LocationService service;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private long next;
+
+        long next() {
+            next = next % ROWS + 1;
+            return next;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.quietLogging();
+        locationCache = BenchmarkFixtures.cache(ROWS);
+        service = BenchmarkFixtures.locationService(locationCache, ROWS);
+        for (long id = 1; id <= ROWS; id++) {
+            service.getById(id);
+        }
+    }
+
+    @Benchmark
+    public Optional<Location> getByIdCacheHit(Cursor cursor) {
+        return service.getById(cursor.next());
+    }
+
+    @Benchmark
+    public Optional<Location> getByIdCacheMiss(Cursor cursor) {
+        long id = cursor.next();
+        locationCache.invalidate("location_" + id);
+        return service.getById(id);
+    }
+}
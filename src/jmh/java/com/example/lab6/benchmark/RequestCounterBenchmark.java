@@ -0,0 +1,49 @@
+package com.example.lab6.benchmark;
+
+import com.example.lab6.service.RequestCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link RequestCounter#increment()}, which every service call makes, alone and with eight threads, against a
+ * shared {@link AtomicLong} as the contended baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestCounterBenchmark {
+
+    private final AtomicLong atomicCounter = new AtomicLong();
+
+    @Benchmark
+    @Threads(1)
+    public void increment() {
+        RequestCounter.increment();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void incrementContended() {
+        RequestCounter.increment();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long atomicLongContended() {
+        return atomicCounter.incrementAndGet();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.lab6.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the load-test workload twice against a slow upstream, once on the platform request thread pool and
+ * once with {@code spring.threads.virtual.enabled}, and prints both side by side. Defaults differ from
+ * {@link LoadTest}: 1000 clients, half of the requests writes (most of them upstream fetches), 500 ms of
+ * upstream latency. Any {@code loadtest.*} system property still overrides them. The provider's in-flight
+ * cap is lifted in both runs so it does not hide the difference between the modes.
+ * Run with {@code mvn -Ploadtest test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.lab6.loadtest.ExecutionModeBenchmark}.
+ */
+public final class ExecutionModeBenchmark {
+
+    private ExecutionModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        setIfAbsent("loadtest.clients", "1000");
+        setIfAbsent("loadtest.write-ratio", "0.5");
+        setIfAbsent("loadtest.upstream-latency", "500ms");
+        setIfAbsent("loadtest.warmup", "15s");
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        double seconds = settings.duration().toMillis() / 1e3;
+
+        Map<String, LatencyRecorder> platform = LoadTest.measure(settings,
+                "--spring.threads.virtual.enabled=false", "--sunrise-sunset.http.max-concurrent-requests=100000");
+        Map<String, LatencyRecorder> virtual = LoadTest.measure(settings,
+                "--spring.threads.virtual.enabled=true", "--sunrise-sunset.http.max-concurrent-requests=100000");
+
+        System.out.printf("%nPlatform threads (Tomcat pool, fixed HTTP client executor)%n");
+        List<LatencyRecorder.OperationResult> platformResults = LoadTest.results(platform, seconds);
+        LoadTest.print(platformResults);
+        System.out.printf("%nVirtual threads%n");
+        List<LatencyRecorder.OperationResult> virtualResults = LoadTest.results(virtual, seconds);
+        LoadTest.print(virtualResults);
+
+        LatencyRecorder.OperationResult before = total(platformResults);
+        LatencyRecorder.OperationResult after = total(virtualResults);
+        System.out.printf("%nvirtual/platform: %.2fx rps, p99 %.2f ms -> %.2f ms, errors %d -> %d%n",
+                after.rps() / before.rps(), before.p99Millis(), after.p99Millis(), before.errors(), after.errors());
+        System.exit(0);
+    }
+
+    private static LatencyRecorder.OperationResult total(List<LatencyRecorder.OperationResult> results) {
+        return results.get(results.size() - 1);
+    }
+
+    private static void setIfAbsent(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+}
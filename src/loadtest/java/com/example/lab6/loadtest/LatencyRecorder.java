@@ -0,0 +1,57 @@
+package com.example.lab6.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of one operation as seen by one client thread, kept exactly so percentiles need no bucketing.
+ * Recorders of all clients are merged once the run is over.
+ */
+final class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private int errors;
+
+    void record(long latencyNanos, boolean failed) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+        if (failed) {
+            errors++;
+        }
+    }
+
+    void addAll(LatencyRecorder other) {
+        if (count + other.count > nanos.length) {
+            nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, count + other.count));
+        }
+        System.arraycopy(other.nanos, 0, nanos, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    OperationResult result(String operation, double seconds) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return new OperationResult(operation, count, errors, count / seconds,
+                percentileMillis(sorted, 50), percentileMillis(sorted, 99),
+                count == 0 ? 0 : sorted[count - 1] / 1e6);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    record OperationResult(String operation, long requests, long errors, double rps, double p50Millis,
+                           double p99Millis, double maxMillis) {
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+}
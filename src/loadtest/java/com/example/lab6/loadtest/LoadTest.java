@@ -0,0 +1,135 @@
+package com.example.lab6.loadtest;
+
+import com.example.lab6.Lab6Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end load test: boots the application with the {@code loadtest} Spring profile (embedded H2 in
+ * PostgreSQL mode) against {@link UpstreamStub}, seeds it, runs {@link Workload} for the warm-up and then for
+ * the measured duration, and reports throughput and p50/p99 latency per operation. The result is written as
+ * JSON; the process exits with 1 when a threshold of {@link LoadTestSettings} is missed, which fails the
+ * Maven build. Run with {@code mvn -Ploadtest verify -DskipTests}.
+ */
+public final class LoadTest {
+
+    private static final String TOTAL = "total";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        ObjectMapper objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .build();
+        List<LatencyRecorder.OperationResult> results =
+                results(measure(settings), settings.duration().toMillis() / 1e3);
+        print(results);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put(TOTAL, results.get(results.size() - 1));
+        report.put("operations", results.subList(0, results.size() - 1));
+        Files.createDirectories(settings.result().toAbsolutePath().getParent());
+        objectMapper.writeValue(settings.result().toFile(), report);
+        System.out.println("Result written to " + settings.result());
+
+        List<String> failures = check(settings, results.get(results.size() - 1), objectMapper);
+        if (settings.updateBaseline()) {
+            Files.copy(settings.result(), settings.baseline(), StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline updated: " + settings.baseline());
+        }
+        failures.forEach(failure -> System.out.println("FAILED: " + failure));
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Boots the application against a fresh {@link UpstreamStub} with the extra command-line
+     * {@code properties}, seeds it, warms up and returns the latencies of the measured run.
+     */
+    static Map<String, LatencyRecorder> measure(LoadTestSettings settings, String... properties) throws Exception {
+        List<String> args = new ArrayList<>(List.of(properties));
+        try (UpstreamStub upstream = new UpstreamStub(settings.upstreamLatency())) {
+            args.add("--server.port=0");
+            args.add("--sunrise-sunset.api-url=" + upstream.url());
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Lab6Application.class)
+                    .profiles("loadtest")
+                    .run(args.toArray(String[]::new))) {
+                int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+                Workload workload = new Workload("http://127.0.0.1:" + port, settings);
+                workload.seed();
+                System.out.printf("Seeded, warming up for %s with %d clients%n", settings.warmup(),
+                        settings.clients());
+                workload.run(settings.warmup());
+                System.out.printf("Measuring for %s%n", settings.duration());
+                return workload.run(settings.duration());
+            }
+        }
+    }
+
+    static List<LatencyRecorder.OperationResult> results(Map<String, LatencyRecorder> recorded,
+                                                                 double seconds) {
+        List<LatencyRecorder.OperationResult> results = new ArrayList<>();
+        LatencyRecorder total = new LatencyRecorder();
+        recorded.forEach((operation, recorder) -> {
+            results.add(recorder.result(operation, seconds));
+            total.addAll(recorder);
+        });
+        results.add(total.result(TOTAL, seconds));
+        return results;
+    }
+
+    static void print(List<LatencyRecorder.OperationResult> results) {
+        System.out.printf("%-34s %9s %7s %9s %9s %9s %9s%n", "operation", "requests", "errors", "rps",
+                "p50 ms", "p99 ms", "max ms");
+        for (LatencyRecorder.OperationResult result : results) {
+            System.out.printf("%-34s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", result.operation(), result.requests(),
+                    result.errors(), result.rps(), result.p50Millis(), result.p99Millis(), result.maxMillis());
+        }
+    }
+
+    private static List<String> check(LoadTestSettings settings, LatencyRecorder.OperationResult total,
+                                      ObjectMapper objectMapper) throws Exception {
+        List<String> failures = new ArrayList<>();
+        if (settings.minRps() > 0 && total.rps() < settings.minRps()) {
+            failures.add(String.format("%.1f rps is below the minimum of %.1f", total.rps(), settings.minRps()));
+        }
+        if (settings.maxP99Millis() > 0 && total.p99Millis() > settings.maxP99Millis()) {
+            failures.add(String.format("p99 of %.2f ms exceeds the maximum of %.2f ms", total.p99Millis(),
+                    settings.maxP99Millis()));
+        }
+        if (total.errorRate() > settings.maxErrorRate()) {
+            failures.add(String.format("error rate of %.4f exceeds the maximum of %.4f", total.errorRate(),
+                    settings.maxErrorRate()));
+        }
+        if (!settings.updateBaseline() && Files.exists(settings.baseline())) {
+            JsonNode baseline = objectMapper.readTree(settings.baseline().toFile()).get(TOTAL);
+            double allowed = settings.maxRegressionPercent() / 100;
+            double baselineRps = baseline.get("rps").asDouble();
+            double baselineP99 = baseline.get("p99Millis").asDouble();
+            if (total.rps() < baselineRps * (1 - allowed)) {
+                failures.add(String.format("%.1f rps is more than %.0f%% below the baseline of %.1f", total.rps(),
+                        settings.maxRegressionPercent(), baselineRps));
+            }
+            if (total.p99Millis() > baselineP99 * (1 + allowed)) {
+                failures.add(String.format("p99 of %.2f ms is more than %.0f%% above the baseline of %.2f ms",
+                        total.p99Millis(), settings.maxRegressionPercent(), baselineP99));
+            }
+        }
+        return failures;
+    }
+}
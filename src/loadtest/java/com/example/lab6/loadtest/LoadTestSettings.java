@@ -0,0 +1,46 @@
+package com.example.lab6.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load-test parameters, read from {@code loadtest.*} system properties (the {@code loadtest} Maven profile
+ * passes them through). Thresholds of 0 are disabled.
+ *
+ * @param writeRatio             share of requests that write: creates, updates and upstream fetches
+ * @param maxRegressionPercent   allowed drop in throughput, or rise in p99 latency, against the baseline
+ */
+record LoadTestSettings(int clients, Duration warmup, Duration duration, double writeRatio, int locations,
+                        int sunriseSunsets, Duration upstreamLatency, double minRps, double maxP99Millis,
+                        double maxErrorRate, Path result, Path baseline, double maxRegressionPercent,
+                        boolean updateBaseline) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.clients", 64),
+                duration("loadtest.warmup", "10s"),
+                duration("loadtest.duration", "30s"),
+                number("loadtest.write-ratio", 0.2),
+                Integer.getInteger("loadtest.locations", 1000),
+                Integer.getInteger("loadtest.sunrise-sunsets", 500),
+                duration("loadtest.upstream-latency", "50ms"),
+                number("loadtest.min-rps", 0),
+                number("loadtest.max-p99-ms", 0),
+                number("loadtest.max-error-rate", 0.01),
+                Path.of(System.getProperty("loadtest.result", "target/loadtest-result.json")),
+                Path.of(System.getProperty("loadtest.baseline", "src/loadtest/baseline.json")),
+                number("loadtest.max-regression-percent", 20),
+                Boolean.getBoolean("loadtest.update-baseline"));
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+
+    private static double number(String property, double defaultValue) {
+        String value = System.getProperty(property);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value);
+    }
+}
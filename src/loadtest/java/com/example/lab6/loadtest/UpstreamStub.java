@@ -0,0 +1,90 @@
+package com.example.lab6.loadtest;
+
+import com.example.lab6.provider.LocalSunriseSunsetProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for api.sunrise-sunset.org. Answers {@code /json} in the API's format with times computed by
+ * {@link LocalSunriseSunsetProvider}, after a fixed delay that stands for the network round trip. Each exchange
+ * runs on its own virtual thread, so the stub itself never caps the request rate.
+ */
+final class UpstreamStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LocalSunriseSunsetProvider provider = new LocalSunriseSunsetProvider();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Duration latency;
+
+    UpstreamStub(Duration latency) throws IOException {
+        this.latency = latency;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/json", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/json";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            byte[] body;
+            int status;
+            try {
+                Thread.sleep(latency.toMillis());
+                body = objectMapper.writeValueAsBytes(provider.fetch(Double.parseDouble(query.get("lat")),
+                        Double.parseDouble(query.get("lng")), query.getOrDefault("date", "today")));
+                status = 200;
+            } catch (RuntimeException e) {
+                body = objectMapper.writeValueAsBytes(Map.of("status", "INVALID_REQUEST"));
+                status = 400;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(pair.substring(0, separator),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
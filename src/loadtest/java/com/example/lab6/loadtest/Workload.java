@@ -0,0 +1,205 @@
+package com.example.lab6.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mixed read/write traffic against the running application. Each client thread sends one request at a time
+ * and picks a write with probability {@link LoadTestSettings#writeRatio()}, otherwise a read; the operation
+ * within the group is uniform. Reads and updates target the rows created by {@link #seed()}; fetches use fresh
+ * coordinates, so they go to the upstream stub and through the native upsert.
+ */
+final class Workload {
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2025, 6, 1);
+    private static final int DATES = 30;
+    private static final int BULK_CHUNK = 1000;
+
+    private interface Operation {
+        HttpRequest request(Workload workload, ThreadLocalRandom random);
+    }
+
+    private static final Map<String, Operation> READS = Map.of(
+            "GET /api/location", (w, r) -> w.get("/api/location?limit=50&after=" + pick(w.locationIds, r)),
+            "GET /api/location/{id}", (w, r) -> w.get("/api/location/" + pick(w.locationIds, r)),
+            "GET /api/location/by-date", (w, r) -> w.get("/api/location/by-date?date=" + date(r)),
+            "GET /api/sunrise-sunset/{id}", (w, r) -> w.get("/api/sunrise-sunset/" + pick(w.sunriseSunsetIds, r)),
+            "GET /api/sunrise-sunset/by-date", (w, r) -> w.get("/api/sunrise-sunset/by-date?date=" + date(r)));
+
+    private static final Map<String, Operation> WRITES = Map.of(
+            "POST /api/location", (w, r) -> w.send("POST", "/api/location", location(r.nextInt())),
+            "PUT /api/location/{id}", (w, r) -> w.send("PUT", "/api/location/" + pick(w.locationIds, r),
+                    location(r.nextInt())),
+            "GET /api/sunrise-sunset/fetch", (w, r) -> w.get(fetchPath(r, pick(w.locationIds, r))));
+
+    private final String baseUrl;
+    private final LoadTestSettings settings;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Long> locationIds = new ArrayList<>();
+    private final List<Long> sunriseSunsetIds = new ArrayList<>();
+    private final List<String> readNames = new ArrayList<>(READS.keySet());
+    private final List<String> writeNames = new ArrayList<>(WRITES.keySet());
+
+    Workload(String baseUrl, LoadTestSettings settings) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Creates the locations in bulk, then fetches sunrise/sunset records linked to them through the upstream
+     * stub, and collects the ids the reads will use.
+     */
+    void seed() throws Exception {
+        for (int from = 0; from < settings.locations(); from += BULK_CHUNK) {
+            List<Map<String, String>> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(settings.locations(), from + BULK_CHUNK); i++) {
+                chunk.add(Map.of("name", "Location " + i, "country", "Belarus"));
+            }
+            JsonNode results = objectMapper.readTree(checked(send("POST", "/api/location/bulk",
+                    objectMapper.writeValueAsString(chunk))));
+            for (JsonNode result : results) {
+                if (result.hasNonNull("id")) {
+                    locationIds.add(result.get("id").asLong());
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(settings.clients(), 32));
+        try {
+            List<Future<byte[]>> fetches = new ArrayList<>();
+            for (int i = 0; i < settings.sunriseSunsets(); i++) {
+                HttpRequest request = get(fetchPath(ThreadLocalRandom.current(), pick(locationIds,
+                        ThreadLocalRandom.current())));
+                fetches.add(executor.submit(() -> checked(request)));
+            }
+            for (Future<byte[]> fetch : fetches) {
+                fetch.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String next = "/api/sunrise-sunset?limit=500";
+        while (next != null) {
+            HttpResponse<byte[]> page = httpClient.send(get(next), HttpResponse.BodyHandlers.ofByteArray());
+            for (JsonNode record : objectMapper.readTree(page.body())) {
+                sunriseSunsetIds.add(record.get("id").asLong());
+            }
+            next = page.headers().firstValue("X-Next-After")
+                    .map(after -> "/api/sunrise-sunset?limit=500&after=" + after)
+                    .orElse(null);
+        }
+        if (locationIds.isEmpty() || sunriseSunsetIds.isEmpty()) {
+            throw new IllegalStateException("Seeding created no rows");
+        }
+    }
+
+    /**
+     * Runs the clients for {@code duration} and returns the latencies per operation.
+     */
+    Map<String, LatencyRecorder> run(Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(settings.clients());
+        List<Future<Map<String, LatencyRecorder>>> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < settings.clients(); i++) {
+                clients.add(executor.submit(() -> client(deadline)));
+            }
+            Map<String, LatencyRecorder> merged = new TreeMap<>();
+            for (Future<Map<String, LatencyRecorder>> client : clients) {
+                client.get().forEach((operation, recorder) ->
+                        merged.computeIfAbsent(operation, o -> new LatencyRecorder()).addAll(recorder));
+            }
+            return merged;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, LatencyRecorder> client(long deadline) {
+        Map<String, LatencyRecorder> recorders = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            boolean write = random.nextDouble() < settings.writeRatio();
+            List<String> names = write ? writeNames : readNames;
+            String name = names.get(random.nextInt(names.size()));
+            HttpRequest request = (write ? WRITES : READS).get(name).request(this, random);
+            long start = System.nanoTime();
+            boolean failed;
+            try {
+                int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                // Concurrent updates of one location lose the optimistic lock; that answer is expected
+                failed = status >= 400 && status != 409;
+            } catch (IOException e) {
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            recorders.computeIfAbsent(name, n -> new LatencyRecorder()).record(System.nanoTime() - start, failed);
+        }
+        return recorders;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private byte[] checked(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " failed with HTTP "
+                    + response.statusCode() + ": " + new String(response.body()));
+        }
+        return response.body();
+    }
+
+    private static String fetchPath(ThreadLocalRandom random, long locationId) {
+        return String.format(Locale.ROOT, "/api/sunrise-sunset/fetch?latitude=%.4f&longitude=%.4f&date=%s"
+                        + "&locationIds=%d", random.nextDouble(-60, 60), random.nextDouble(-180, 180), date(random),
+                locationId);
+    }
+
+    private static String location(int seed) {
+        return "{\"name\":\"Location " + seed + "\",\"country\":\"Belarus\"}";
+    }
+
+    private static LocalDate date(ThreadLocalRandom random) {
+        return FIRST_DATE.plusDays(random.nextInt(DATES));
+    }
+
+    private static long pick(List<Long> ids, ThreadLocalRandom random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.lab6.aspect;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Deferred, size-bounded rendering of logged arguments and results. Nothing is formatted until the
+ * logger calls {@link #toString()}, and collections are walked only until the length budget is spent,
+ * so a large result list never has every element stringified.
+ */
+final class LogPayload {
+
+    private static final String TRUNCATED = "...(truncated)";
+
+    private final Object value;
+    private final int maxLength;
+
+    private LogPayload(Object value, int maxLength) {
+        this.value = value;
+        this.maxLength = maxLength;
+    }
+
+    static LogPayload of(Object value, int maxLength) {
+        return new LogPayload(value, maxLength);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        append(sb, value);
+        if (maxLength > 0 && sb.length() > maxLength) {
+            sb.setLength(maxLength);
+            sb.append(TRUNCATED);
+        }
+        return sb.toString();
+    }
+
+    private boolean full(StringBuilder sb) {
+        return maxLength > 0 && sb.length() > maxLength;
+    }
+
+    private void append(StringBuilder sb, Object value) {
+        if (value instanceof ResponseEntity<?> response) {
+            sb.append("ResponseEntity[").append(response.getStatusCode().value()).append(", ");
+            append(sb, response.getBody());
+            sb.append(']');
+        } else if (value instanceof Object[] array) {
+            sb.append('[');
+            appendElements(sb, Arrays.asList(array).iterator());
+            sb.append(']');
+        } else if (value instanceof Collection<?> collection) {
+            sb.append(value.getClass().getSimpleName()).append("(size=").append(collection.size()).append(")[");
+            appendElements(sb, collection.iterator());
+            sb.append(']');
+        } else if (value instanceof Map<?, ?> map) {
+            sb.append(value.getClass().getSimpleName()).append("(size=").append(map.size()).append("){");
+            appendElements(sb, map.entrySet().iterator());
+            sb.append('}');
+        } else if (value instanceof Map.Entry<?, ?> entry) {
+            append(sb, entry.getKey());
+            sb.append('=');
+            append(sb, entry.getValue());
+        } else {
+            String text = String.valueOf(value);
+            if (maxLength > 0 && text.length() > maxLength) {
+                // Only the visible prefix is kept; toString() trims the rest
+                text = text.substring(0, maxLength + 1);
+            }
+            sb.append(text);
+        }
+    }
+
+    private void appendElements(StringBuilder sb, Iterator<?> elements) {
+        boolean first = true;
+        while (elements.hasNext()) {
+            if (full(sb)) {
+                return;
+            }
+            if (!first) {
+                sb.append(", ");
+            }
+            append(sb, elements.next());
+            first = false;
+        }
+    }
+}
@@ -1,55 +1,116 @@
 package com.example.lab6.aspect;
 
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Logs controller and service calls. In {@code full} mode every call is logged; in {@code sampled} mode
+ * only a fraction of calls per endpoint is, as configured by {@code logging.aspect.sample-rate} and the
+ * per-method {@code logging.aspect.sample-rates} overrides. Exceptions are always logged. Arguments and
+ * results are rendered lazily and truncated to {@code logging.aspect.max-payload-length} characters.
+ */
 @Aspect
 @Component
 public class LoggingAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
 
-    @Before("execution(* com.example.lab6.controller.*.*(..))")
-    public void logBeforeController(JoinPoint joinPoint) {
-        logger.info("Entering controller method: {} with arguments: {}",
-                joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
-    }
+    public enum Mode { FULL, SAMPLED }
+
+    private final Mode mode;
+    private final double defaultSampleRate;
+    private final Map<String, Double> sampleRates;
+    private final int maxPayloadLength;
+    private final Map<Method, Double> resolvedRates = new ConcurrentHashMap<>();
 
-    @AfterReturning(pointcut = "execution(* com.example.lab6.controller.*.*(..))", returning = "result")
-    public void logAfterController(JoinPoint joinPoint, Object result) {
-        logger.info("Exiting controller method: {} with result: {}",
-                joinPoint.getSignature().getName(), result);
+    public LoggingAspect(@Value("${logging.aspect.mode:full}") String mode,
+                         @Value("${logging.aspect.sample-rate:1.0}") double defaultSampleRate,
+                         @Value("${logging.aspect.sample-rates:}") String sampleRates,
+                         @Value("${logging.aspect.max-payload-length:512}") int maxPayloadLength) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        this.defaultSampleRate = defaultSampleRate;
+        this.sampleRates = parseSampleRates(sampleRates);
+        this.maxPayloadLength = maxPayloadLength;
     }
 
-    @AfterThrowing(pointcut = "execution(* com.example.lab6.controller.*.*(..))", throwing = "exception")
-    public void logAfterThrowingController(JoinPoint joinPoint, Throwable exception) {
-        logger.error("Exception in controller method: {} with cause: {}",
-                joinPoint.getSignature().getName(), exception.getMessage(), exception);
+    @Around("execution(* com.example.lab6.controller.*.*(..))")
+    public Object logController(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean traced = logger.isInfoEnabled() && sampled(joinPoint);
+        if (traced) {
+            logger.info("Entering controller method: {} with arguments: {}",
+                    joinPoint.getSignature().getName(), LogPayload.of(joinPoint.getArgs(), maxPayloadLength));
+        }
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable exception) {
+            logger.error("Exception in controller method: {} with cause: {}",
+                    joinPoint.getSignature().getName(), exception.getMessage(), exception);
+            throw exception;
+        }
+        if (traced) {
+            logger.info("Exiting controller method: {} with result: {}",
+                    joinPoint.getSignature().getName(), LogPayload.of(result, maxPayloadLength));
+        }
+        return result;
     }
 
-    @Before("execution(* com.example.lab6.service.*.*(..))")
-    public void logBeforeService(JoinPoint joinPoint) {
-        logger.debug("Entering service method: {} with arguments: {}",
-                joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
+    @Around("execution(* com.example.lab6.service.*.*(..))")
+    public Object logService(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean traced = logger.isDebugEnabled() && sampled(joinPoint);
+        if (traced) {
+            logger.debug("Entering service method: {} with arguments: {}",
+                    joinPoint.getSignature().getName(), LogPayload.of(joinPoint.getArgs(), maxPayloadLength));
+        }
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable exception) {
+            logger.error("Exception in service method: {} with cause: {}",
+                    joinPoint.getSignature().getName(), exception.getMessage(), exception);
+            throw exception;
+        }
+        if (traced) {
+            logger.debug("Exiting service method: {} with result: {}",
+                    joinPoint.getSignature().getName(), LogPayload.of(result, maxPayloadLength));
+        }
+        return result;
     }
 
-    @AfterReturning(pointcut = "execution(* com.example.lab6.service.*.*(..))", returning = "result")
-    public void logAfterService(JoinPoint joinPoint, Object result) {
-        logger.debug("Exiting service method: {} with result: {}",
-                joinPoint.getSignature().getName(), result);
+    private boolean sampled(ProceedingJoinPoint joinPoint) {
+        if (mode == Mode.FULL) {
+            return true;
+        }
+        double rate = resolvedRates.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                method -> sampleRates.getOrDefault(
+                        method.getDeclaringClass().getSimpleName() + "." + method.getName(), defaultSampleRate));
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
     }
 
-    @AfterThrowing(pointcut = "execution(* com.example.lab6.service.*.*(..))", throwing = "exception")
-    public void logAfterThrowingService(JoinPoint joinPoint, Throwable exception) {
-        logger.error("Exception in service method: {} with cause: {}",
-                joinPoint.getSignature().getName(), exception.getMessage(), exception);
+    static Map<String, Double> parseSampleRates(String value) {
+        Map<String, Double> rates = new HashMap<>();
+        for (String item : value.split(",")) {
+            if (item.isBlank()) {
+                continue;
+            }
+            String[] parts = item.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid sample rate entry: " + item.trim());
+            }
+            rates.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+        }
+        return rates;
     }
-}
\ No newline at end of file
+}
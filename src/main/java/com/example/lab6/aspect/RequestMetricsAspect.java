@@ -0,0 +1,40 @@
+package com.example.lab6.aspect;
+
+import com.example.lab6.metrics.RequestMetrics;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RequestMetricsAspect {
+
+    private final RequestMetrics requestMetrics;
+
+    @Around("execution(public * com.example.lab6.service.*Service.*(..))")
+    public Object recordServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            requestMetrics.record(method, System.nanoTime() - start, true);
+            throw e;
+        }
+        if (result instanceof CompletableFuture<?> future) {
+            // Async calls are timed until the future settles, not until it is handed back
+            future.whenComplete((value, error) ->
+                    requestMetrics.record(method, System.nanoTime() - start, error != null));
+        } else {
+            requestMetrics.record(method, System.nanoTime() - start, false);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.lab6.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe cache region with a size bound and a time-to-live.
+ * Entries are evicted in write order once the region is full or the entry is older than the TTL.
+ * An entry may carry tags naming the records it was built from, so a write can evict
+ * only the entries that depend on the changed record.
+ */
+public class BoundedCache<V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<V>> writeOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ConcurrentHashMap<String, Set<Entry<V>>> tagIndex = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public BoundedCache(String name, int maxSize, Duration ttl) {
+        this(name, maxSize, ttl, System::nanoTime);
+    }
+
+    BoundedCache(String name, int maxSize, Duration ttl, LongSupplier ticker) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache max size must be positive: " + maxSize);
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Cache TTL must be positive: " + ttl);
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the cached value or {@code null} when the key is absent or expired.
+     */
+    public V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(ticker.getAsLong())) {
+            if (entries.remove(key, entry)) {
+                unlink(entry);
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public void put(String key, V value) {
+        put(key, value, List.of());
+    }
+
+    public void put(String key, V value, Collection<String> tags) {
+        Entry<V> entry = new Entry<>(key, value, ticker.getAsLong() + ttlNanos, List.copyOf(tags));
+        Entry<V> previous = entries.put(key, entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+        // Linked only once stored, so a racing invalidateTag that finds the entry can also remove it. If the
+        // entry was removed or replaced while its tags were being linked, drop the links it left behind.
+        link(entry);
+        if (entries.get(key) != entry) {
+            unlink(entry);
+            return;
+        }
+        writeOrder.add(entry);
+        queued.incrementAndGet();
+        expireHead();
+        evictOverflow();
+        purgeStaleOrder();
+    }
+
+    public void invalidate(String key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            unlink(removed);
+        }
+    }
+
+    /**
+     * Evicts every entry that was stored with the given tag.
+     */
+    public void invalidateTag(String tag) {
+        Set<Entry<V>> tagged = tagIndex.remove(tag);
+        if (tagged == null) {
+            return;
+        }
+        for (Entry<V> entry : tagged) {
+            if (entries.remove(entry.key, entry)) {
+                unlink(entry);
+            }
+        }
+    }
+
+    public void invalidateTags(Collection<String> tags) {
+        tags.forEach(this::invalidateTag);
+    }
+
+    public void clear() {
+        entries.clear();
+        tagIndex.clear();
+        writeOrder.clear();
+        queued.set(0);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(name, entries.size(), maxSize, Duration.ofNanos(ttlNanos).toSeconds(),
+                hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    // Queue head is the oldest write, so expired entries form a prefix of the queue.
+    private void expireHead() {
+        long now = ticker.getAsLong();
+        Entry<V> head;
+        while ((head = writeOrder.peek()) != null && head.isExpired(now)) {
+            if (writeOrder.remove(head)) {
+                queued.decrementAndGet();
+                if (entries.remove(head.key, head)) {
+                    unlink(head);
+                    expirations.increment();
+                }
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maxSize) {
+            Entry<V> eldest = writeOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(eldest.key, eldest)) {
+                unlink(eldest);
+                evictions.increment();
+            }
+        }
+    }
+
+    // Overwritten and invalidated entries stay queued until polled; drop them before the queue outgrows the map.
+    private void purgeStaleOrder() {
+        if (queued.get() > 2 * maxSize) {
+            writeOrder.removeIf(entry -> {
+                boolean stale = entries.get(entry.key) != entry;
+                if (stale) {
+                    queued.decrementAndGet();
+                }
+                return stale;
+            });
+        }
+    }
+
+    private void link(Entry<V> entry) {
+        for (String tag : entry.tags) {
+            tagIndex.compute(tag, (t, tagged) -> {
+                Set<Entry<V>> result = tagged != null ? tagged : ConcurrentHashMap.newKeySet();
+                result.add(entry);
+                return result;
+            });
+        }
+    }
+
+    private void unlink(Entry<V> entry) {
+        for (String tag : entry.tags) {
+            tagIndex.computeIfPresent(tag, (t, tagged) -> {
+                tagged.remove(entry);
+                return tagged.isEmpty() ? null : tagged;
+            });
+        }
+    }
+
+    private static final class Entry<V> {
+        private final String key;
+        private final V value;
+        private final long expiresAt;
+        private final List<String> tags;
+
+        private Entry(String key, V value, long expiresAt, List<String> tags) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.tags = tags;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.lab6.cache;
+
+public record CacheStats(
+        String region,
+        long size,
+        long maxSize,
+        long ttlSeconds,
+        long hits,
+        long misses,
+        long evictions,
+        long expirations) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
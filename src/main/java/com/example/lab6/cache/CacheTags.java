@@ -0,0 +1,68 @@
+package com.example.lab6.cache;
+
+import com.example.lab6.dto.LocationView;
+import com.example.lab6.dto.SunriseSunsetView;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tags linking cached lists to the records they contain.
+ */
+public final class CacheTags {
+
+    public static final String ALL_LOCATIONS = "locations:all";
+    public static final String ALL_SUNRISE_SUNSETS = "sunrise_sunsets:all";
+
+    private CacheTags() {
+    }
+
+    public static String location(Long id) {
+        return "location:" + id;
+    }
+
+    public static String sunriseSunset(Long id) {
+        return "sunrise_sunset:" + id;
+    }
+
+    public static String date(LocalDate date) {
+        return "date:" + date;
+    }
+
+    public static List<String> forLocations(Collection<Location> locations, String... extra) {
+        List<String> tags = new ArrayList<>(List.of(extra));
+        for (Location location : locations) {
+            tags.add(location(location.getId()));
+        }
+        return tags;
+    }
+
+    public static List<String> forLocationViews(Collection<LocationView> locations, String... extra) {
+        List<String> tags = new ArrayList<>(List.of(extra));
+        for (LocationView location : locations) {
+            tags.add(location(location.id()));
+        }
+        return tags;
+    }
+
+    public static List<String> forSunriseSunsets(Collection<SunriseSunset> sunriseSunsets, String... extra) {
+        List<String> tags = new ArrayList<>(List.of(extra));
+        for (SunriseSunset sunriseSunset : sunriseSunsets) {
+            tags.add(sunriseSunset(sunriseSunset.getId()));
+        }
+        return tags;
+    }
+
+    public static List<String> forSunriseSunsetViews(Collection<SunriseSunsetView> sunriseSunsets,
+                                                     String... extra) {
+        List<String> tags = new ArrayList<>(List.of(extra));
+        for (SunriseSunsetView sunriseSunset : sunriseSunsets) {
+            tags.add(sunriseSunset(sunriseSunset.id()));
+        }
+        return tags;
+    }
+}
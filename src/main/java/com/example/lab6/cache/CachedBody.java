@@ -0,0 +1,9 @@
+package com.example.lab6.cache;
+
+/**
+ * A serialized JSON response body, with its gzip encoding when the body is large enough to be worth
+ * compressing ({@code null} otherwise). Keyset pages also keep their cursor and limit so the paging headers
+ * can be rebuilt; both are {@code null} for other responses.
+ */
+public record CachedBody(byte[] json, byte[] gzip, Long nextAfter, Integer pageLimit) {
+}
@@ -0,0 +1,38 @@
+package com.example.lab6.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Per-region counters of the Hibernate second-level and query caches. Regions appear once they have
+ * been used; counters are only collected with {@code hibernate.generate_statistics=true}.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheStatistics {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public List<SecondLevelCacheStats> regions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(statistics::getCacheRegionStatistics)
+                .filter(Objects::nonNull)
+                .map(SecondLevelCacheStatistics::toStats)
+                .toList();
+    }
+
+    private static SecondLevelCacheStats toStats(CacheRegionStatistics region) {
+        return new SecondLevelCacheStats(region.getRegionName(), region.getElementCountInMemory(),
+                region.getHitCount(), region.getMissCount(), region.getPutCount());
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.lab6.cache;
+
+public record SecondLevelCacheStats(
+        String region,
+        long elementsInMemory,
+        long hits,
+        long misses,
+        long puts) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
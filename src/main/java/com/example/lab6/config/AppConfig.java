@@ -2,16 +2,60 @@ package com.example.lab6.config;
 
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService precomputeExecutor(@Value("${precompute.threads:1}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "precompute-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Saves records fetched through {@code sendAsync}, so that blocking JDBC work stays off the threads that
+     * complete HTTP responses. With {@code spring.threads.virtual.enabled} each save gets a virtual thread;
+     * the bounded data source caps the connections they hold either way.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService sunriseSunsetSaveExecutor(
+            @Value("${sunrise-sunset.save.threads:8}") int threads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sunrise-sunset-save-", 1).factory());
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "sunrise-sunset-save-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Scheduler for {@code @Scheduled} methods. Spring Boot does not create one while a
+     * {@link ScheduledExecutorService} bean exists, and they would then share the precompute executor.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
     }
 
     @Bean
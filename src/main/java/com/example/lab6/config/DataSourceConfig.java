@@ -0,0 +1,34 @@
+package com.example.lab6.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Wraps the auto-configured pool in a {@link BoundedDataSource}. Static and reading the
+     * {@link Environment} directly, as post-processors are created before regular beans.
+     */
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        int maxConnections = environment.getProperty("db.concurrency.max-connections", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        String acquireTimeout = environment.getProperty("db.concurrency.acquire-timeout", "5s");
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)) {
+                    return new BoundedDataSource(dataSource, maxConnections,
+                            DurationStyle.detectAndParse(acquireTimeout));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.lab6.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class HttpClientConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientConfig.class);
+
+    /**
+     * Runs the client's internal tasks and completes the futures of {@code sendAsync}; saving fetched
+     * records is handed on to {@code sunriseSunsetSaveExecutor}. With {@code spring.threads.virtual.enabled}
+     * each task gets its own virtual thread instead of a slot in the fixed pool.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService sunriseSunsetHttpExecutor(
+            @Value("${sunrise-sunset.http.threads:8}") int threads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sunrise-sunset-http-", 1).factory());
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "sunrise-sunset-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    /**
+     * Shared client for the sunrise/sunset provider. The JDK client keeps idle HTTP/1.1 connections in a
+     * pool whose size and keep-alive are JVM-wide, so they are launch flags of every deployment, e.g.
+     * {@code java -Djdk.httpclient.connectionPoolSize=32 -Djdk.httpclient.keepalive.timeout=30 -jar app.jar}.
+     * The effective values are logged at startup so that a missing flag shows up.
+     */
+    @Bean
+    public HttpClient sunriseSunsetHttpClient(
+            ExecutorService sunriseSunsetHttpExecutor,
+            @Value("${sunrise-sunset.http.connect-timeout:2s}") Duration connectTimeout) {
+        logger.info("JDK HTTP client connection pool: size {}, keep-alive {} s",
+                System.getProperty("jdk.httpclient.connectionPoolSize", "unbounded (JDK default)"),
+                System.getProperty("jdk.httpclient.keepalive.timeout", "JDK default"));
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(sunriseSunsetHttpExecutor)
+                .build();
+    }
+}
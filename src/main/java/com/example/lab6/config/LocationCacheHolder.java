@@ -1,16 +1,29 @@
 package com.example.lab6.config;
 
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.dto.LocationView;
 import com.example.lab6.model.Location;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 
+@Configuration
 public class LocationCacheHolder {
 
-    private static final Map<String, List<Location>> INSTANCE = new HashMap<>();
+    @Bean
+    public BoundedCache<List<Location>> locationCache(
+            @Value("${cache.location.max-size:1000}") int maxSize,
+            @Value("${cache.location.ttl:10m}") Duration ttl) {
+        return new BoundedCache<>("location", maxSize, ttl);
+    }
 
-    public static Map<String, List<Location>> getInstance() {
-        return INSTANCE;
+    @Bean
+    public BoundedCache<List<LocationView>> locationViewCache(
+            @Value("${cache.location-view.max-size:1000}") int maxSize,
+            @Value("${cache.location-view.ttl:10m}") Duration ttl) {
+        return new BoundedCache<>("location-view", maxSize, ttl);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.example.lab6.config;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CachedBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ResponseCacheHolder {
+
+    @Bean
+    public BoundedCache<CachedBody> responseBodyCache(
+            @Value("${cache.response-body.max-size:1000}") int maxSize,
+            @Value("${cache.response-body.ttl:10m}") Duration ttl) {
+        return new BoundedCache<>("response-body", maxSize, ttl);
+    }
+}
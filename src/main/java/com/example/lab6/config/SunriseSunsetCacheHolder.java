@@ -1,16 +1,37 @@
 package com.example.lab6.config;
 
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.dto.SunriseSunsetView;
 import com.example.lab6.model.SunriseSunset;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
+@Configuration
 public class SunriseSunsetCacheHolder {
 
-    private static final Map<String, List<SunriseSunset>> INSTANCE = new HashMap<>();
+    @Bean
+    public BoundedCache<List<SunriseSunset>> sunriseSunsetCache(
+            @Value("${cache.sunrise-sunset.max-size:1000}") int maxSize,
+            @Value("${cache.sunrise-sunset.ttl:10m}") Duration ttl) {
+        return new BoundedCache<>("sunrise-sunset", maxSize, ttl);
+    }
+
+    @Bean
+    public BoundedCache<List<SunriseSunsetView>> sunriseSunsetViewCache(
+            @Value("${cache.sunrise-sunset-view.max-size:1000}") int maxSize,
+            @Value("${cache.sunrise-sunset-view.ttl:10m}") Duration ttl) {
+        return new BoundedCache<>("sunrise-sunset-view", maxSize, ttl);
+    }
 
-    public static Map<String, List<SunriseSunset>> getInstance() {
-        return INSTANCE;
+    @Bean
+    public BoundedCache<Map<String, Object>> sunriseSunsetFetchCache(
+            @Value("${cache.sunrise-sunset-fetch.max-size:1000}") int maxSize,
+            @Value("${cache.sunrise-sunset-fetch.ttl:30s}") Duration ttl) {
+        return new BoundedCache<>("sunrise-sunset-fetch", maxSize, ttl);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.example.lab6.controller;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CacheStats;
+import com.example.lab6.cache.SecondLevelCacheStatistics;
+import com.example.lab6.cache.SecondLevelCacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final List<BoundedCache<?>> caches;
+    private final SecondLevelCacheStatistics secondLevelCacheStatistics;
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStats>> getStats() {
+        return ResponseEntity.ok(caches.stream().map(BoundedCache::stats).toList());
+    }
+
+    @GetMapping("/second-level")
+    public ResponseEntity<List<SecondLevelCacheStats>> getSecondLevelStats() {
+        return ResponseEntity.ok(secondLevelCacheStatistics.regions());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.lab6.controller;
+
+import com.example.lab6.dto.ChangeEvent;
+import com.example.lab6.service.ChangeFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Pushes committed writes as Server-Sent Events, so clients can refetch only what changed instead of polling
+ * the lists. Change events are unnamed ({@code onmessage}); a {@code reset} event tells the client that events
+ * were missed and it has to reload. Each subscriber is written to by its own virtual thread, so a slow client
+ * only delays itself.
+ */
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeFeedController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedController.class);
+    private final ChangeFeed changeFeed;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final ThreadFactory senders = Thread.ofVirtual().name("change-feed-", 1).factory();
+
+    public ChangeFeedController(ChangeFeed changeFeed,
+                                @Value("${change-feed.timeout:30m}") Duration timeout,
+                                @Value("${change-feed.heartbeat:15s}") Duration heartbeat) {
+        this.changeFeed = changeFeed;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String entity) {
+        Optional<ChangeFeed.Subscription> subscribed = changeFeed.subscribe(lastEventId, entity);
+        if (subscribed.isEmpty()) {
+            logger.warn("Change feed subscriber limit reached");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        ChangeFeed.Subscription subscription = subscribed.get();
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Thread sender = senders.newThread(() -> send(subscription, emitter));
+        Runnable stop = () -> {
+            subscription.close();
+            sender.interrupt();
+        };
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(error -> stop.run());
+        sender.start();
+        logger.debug("Change feed subscriber connected, resuming after {}", lastEventId);
+        return ResponseEntity.ok(emitter);
+    }
+
+    private void send(ChangeFeed.Subscription subscription, SseEmitter emitter) {
+        try {
+            if (subscription.reset()) {
+                emitter.send(SseEmitter.event()
+                        .name("reset")
+                        .id(subscription.startId())
+                        .data("Events since the given Last-Event-ID are no longer available, reload the lists"));
+            }
+            for (ChangeEvent event : subscription.backlog()) {
+                emitter.send(SseEmitter.event().id(event.id()).data(event, MediaType.APPLICATION_JSON));
+            }
+            while (subscription.isOpen()) {
+                ChangeEvent event = subscription.next(heartbeat);
+                if (event == null) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    emitter.send(SseEmitter.event().id(event.id()).data(event, MediaType.APPLICATION_JSON));
+                }
+            }
+            if (subscription.dropped()) {
+                logger.info("Change feed subscriber fell behind and was dropped");
+            }
+            emitter.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter already completed
+            logger.debug("Change feed subscriber disconnected: {}", e.getMessage());
+        } finally {
+            subscription.close();
+        }
+    }
+}
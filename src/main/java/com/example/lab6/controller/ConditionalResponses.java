@@ -0,0 +1,29 @@
+package com.example.lab6.controller;
+
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Conditional GET support. Read endpoints compute a weak ETag from {@link com.example.lab6.service.ChangeStamps}
+ * or an entity version before loading anything; when it matches {@code If-None-Match} (or
+ * {@code If-Modified-Since} is not older than the last write) the handler returns {@code null} and Spring
+ * answers 304 without a body. Otherwise the ETag and Last-Modified headers are added to the 200 response.
+ * Last-Modified has one-second resolution, so clients that only send {@code If-Modified-Since} can miss a
+ * write made within the same second; the ETag has no such gap and takes precedence when both are sent.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    static boolean notModified(WebRequest request, String tag) {
+        return request.checkNotModified(etag(tag));
+    }
+
+    static boolean notModified(WebRequest request, String tag, long lastModifiedMillis) {
+        return request.checkNotModified(etag(tag), lastModifiedMillis);
+    }
+
+    private static String etag(String tag) {
+        return "W/\"" + tag + "\"";
+    }
+}
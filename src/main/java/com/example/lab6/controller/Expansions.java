@@ -0,0 +1,29 @@
+package com.example.lab6.controller;
+
+import java.util.List;
+
+/**
+ * Read endpoints list linked records by id; {@code ?expand=<relation>} opts in to rendering them.
+ */
+final class Expansions {
+
+    private Expansions() {
+    }
+
+    static boolean requested(List<String> expand, String relation) {
+        boolean requested = false;
+        if (expand != null) {
+            for (String value : expand) {
+                if (value.isBlank()) {
+                    continue;
+                }
+                if (!relation.equals(value.trim())) {
+                    throw new IllegalArgumentException("Unknown expand value '" + value + "', expected '"
+                            + relation + "'");
+                }
+                requested = true;
+            }
+        }
+        return requested;
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.lab6.controller;
 
+import com.example.lab6.cache.CacheTags;
+import com.example.lab6.dto.LocationBulkResult;
 import com.example.lab6.model.Location;
+import com.example.lab6.service.ChangeStamps;
 import com.example.lab6.service.LocationService;
+import com.example.lab6.service.Pages;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,26 +26,64 @@ public class LocationController {
 
     private static final Logger logger = LoggerFactory.getLogger(LocationController.class);
     private final LocationService locationService;
+    private final ChangeStamps changeStamps;
+    private final ResponseBodies responseBodies;
+    private final Pages pages;
 
     @GetMapping
-    public ResponseEntity<List<Location>> getAll() {
-        logger.info("Getting all locations");
-        return ResponseEntity.ok(locationService.getAll());
+    public ResponseEntity<byte[]> getAll(@RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) List<String> expand,
+                                         WebRequest request) {
+        logger.info("Getting locations after ID: {}, limit: {}", after, limit);
+        boolean expandSunriseSunsets = Expansions.requested(expand, "sunriseSunsets");
+        if (ConditionalResponses.notModified(request, changeStamps.collections(), changeStamps.lastModified())) {
+            return null;
+        }
+        int pageLimit = pages.resolveLimit(limit);
+        String key = "locations_page_" + (after != null ? after : 0) + "_" + pageLimit
+                + (expandSunriseSunsets ? "_expanded" : "");
+        return responseBodies.page(key, request, () -> locationService.getPage(after, pageLimit, expandSunriseSunsets),
+                page -> CacheTags.forLocationViews(page.items(),
+                        ResponseBodies.ifLastPage(page, CacheTags.ALL_LOCATIONS)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Location> getById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getById(@PathVariable Long id, WebRequest request) {
         logger.info("Getting location by ID: {}", id);
-        return locationService.getById(id)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+        // The entity embeds its sunrise/sunset records, whose changes do not bump the location version
+        String linkedStamp = changeStamps.sunriseSunsets();
+        Optional<Long> version = locationService.getVersion(id);
+        if (version.isPresent()
+                && ConditionalResponses.notModified(request, "location-" + version.get() + "-" + linkedStamp)) {
+            return null;
+        }
+        return responseBodies.one("location_" + id, request, () -> locationService.getById(id),
+                List.of(CacheTags.location(id)));
     }
 
     @GetMapping("/by-date")
-    public ResponseEntity<List<Location>> getLocationsByDate(@RequestParam String date) {
+    public ResponseEntity<byte[]> getLocationsByDate(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            WebRequest request) {
         logger.info("Getting locations by sunrise/sunset date: {}", date);
-        List<Location> locations = locationService.getLocationsByDate(date);
-        return ResponseEntity.ok(locations);
+        if (ConditionalResponses.notModified(request, changeStamps.collections(), changeStamps.lastModified())) {
+            return null;
+        }
+        return responseBodies.list("locations_date_" + date, request, () -> locationService.getLocationsByDate(date),
+                locations -> CacheTags.forLocations(locations, CacheTags.date(date)));
+    }
+
+    @GetMapping("/by-date-range")
+    public ResponseEntity<List<Location>> getLocationsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        logger.info("Getting locations by sunrise/sunset date range: {} - {}", from, to);
+        if (ConditionalResponses.notModified(request, changeStamps.collections(), changeStamps.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(locationService.getLocationsByDateRange(from, to));
     }
 
     @PostMapping
@@ -50,11 +96,11 @@ public class LocationController {
     }
 
     @PostMapping("/bulk")
-    public ResponseEntity<List<Location>> bulkCreateOrUpdate(
-            @Valid @RequestBody List<Location> locations,
+    public ResponseEntity<List<LocationBulkResult>> bulkCreateOrUpdate(
+            @RequestBody List<Location> locations,
             @RequestParam(required = false) List<Long> sunriseSunsetIds) {
         logger.info("Bulk creating/updating locations: {}", locations.size());
-        List<Location> result = locationService.bulkCreateOrUpdate(locations, sunriseSunsetIds);
+        List<LocationBulkResult> result = locationService.bulkCreateOrUpdate(locations, sunriseSunsetIds);
         return ResponseEntity.ok(result);
     }
 
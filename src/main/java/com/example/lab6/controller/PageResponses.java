@@ -0,0 +1,30 @@
+package com.example.lab6.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Keyset pages are returned as a plain JSON array; the cursor of the next page travels in the
+ * {@code X-Next-After} and {@code Link} headers.
+ */
+final class PageResponses {
+
+    static final String NEXT_AFTER_HEADER = "X-Next-After";
+
+    private PageResponses() {
+    }
+
+    static ResponseEntity.BodyBuilder ok(Long nextAfter, int limit) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextAfter != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", nextAfter)
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            response.header(NEXT_AFTER_HEADER, String.valueOf(nextAfter))
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response;
+    }
+}
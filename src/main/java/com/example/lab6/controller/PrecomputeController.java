@@ -0,0 +1,48 @@
+package com.example.lab6.controller;
+
+import com.example.lab6.dto.PrecomputeJobRequest;
+import com.example.lab6.dto.PrecomputeJobStatus;
+import com.example.lab6.service.SunriseSunsetPrecomputeService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/sunrise-sunset/precompute")
+public class PrecomputeController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrecomputeController.class);
+    private final SunriseSunsetPrecomputeService precomputeService;
+
+    @PostMapping
+    public ResponseEntity<PrecomputeJobStatus> submit(@RequestBody PrecomputeJobRequest request) {
+        logger.info("Submitting precompute job: {} to {}", request.from(), request.to());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(precomputeService.submit(request));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<PrecomputeJobStatus>> getAll() {
+        return ResponseEntity.ok(precomputeService.getAll());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<PrecomputeJobStatus> getStatus(@PathVariable String id) {
+        return precomputeService.getStatus(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<PrecomputeJobStatus> cancel(@PathVariable String id) {
+        logger.info("Cancelling precompute job: {}", id);
+        return precomputeService.cancel(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
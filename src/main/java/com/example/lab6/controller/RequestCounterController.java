@@ -1,17 +1,30 @@
 package com.example.lab6.controller;
 
+import com.example.lab6.metrics.MethodMetricsSnapshot;
+import com.example.lab6.metrics.RequestMetrics;
 import com.example.lab6.service.RequestCounter;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/counter")
+@RequiredArgsConstructor
 public class RequestCounterController {
 
+    private final RequestMetrics requestMetrics;
+
     @GetMapping
     public ResponseEntity<Long> getRequestCount() {
         return ResponseEntity.ok(RequestCounter.getRequestCount());
     }
-}
\ No newline at end of file
+
+    @GetMapping("/methods")
+    public ResponseEntity<List<MethodMetricsSnapshot>> getMethodMetrics() {
+        return ResponseEntity.ok(requestMetrics.snapshot());
+    }
+}
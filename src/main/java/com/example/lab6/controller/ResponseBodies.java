@@ -0,0 +1,154 @@
+package com.example.lab6.controller;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CachedBody;
+import com.example.lab6.dto.KeysetPage;
+import com.example.lab6.service.ChangeStamps;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves read endpoints from the {@code response-body} cache of pre-encoded JSON, so a hit skips both the service
+ * and Jackson. Keys follow the service cache keys and entries carry the same tags, which
+ * {@link com.example.lab6.service.CacheInvalidator} evicts on every write. A body loaded while a write
+ * committed is not kept, see {@link ChangeStamps}.
+ */
+@Component
+@RequiredArgsConstructor
+class ResponseBodies {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseBodies.class);
+
+    private final BoundedCache<CachedBody> responseBodyCache;
+    private final ChangeStamps changeStamps;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cache.response-body.gzip-min-size:1024}")
+    private int gzipMinSize;
+
+    private record Loaded(Object value, List<String> tags, Long nextAfter, Integer pageLimit) {
+    }
+
+    /**
+     * @return 404 when the loader finds nothing; misses are not cached
+     */
+    <T> ResponseEntity<byte[]> one(String key, WebRequest request, Supplier<Optional<T>> loader,
+                                   List<String> tags) {
+        return serve(key, request, () -> loader.get()
+                .map(value -> new Loaded(value, tags, null, null))
+                .orElse(null));
+    }
+
+    <T> ResponseEntity<byte[]> list(String key, WebRequest request, Supplier<List<T>> loader,
+                                    Function<List<T>, List<String>> tags) {
+        return serve(key, request, () -> {
+            List<T> values = loader.get();
+            return new Loaded(values, tags.apply(values), null, null);
+        });
+    }
+
+    <T> ResponseEntity<byte[]> page(String key, WebRequest request, Supplier<KeysetPage<T>> loader,
+                                    Function<KeysetPage<T>, List<String>> tags) {
+        return serve(key, request, () -> {
+            KeysetPage<T> page = loader.get();
+            return new Loaded(page.items(), tags.apply(page), page.nextAfter(), page.limit());
+        });
+    }
+
+    /**
+     * New rows get higher ids, so only the last page, which is not full, can gain rows on insert.
+     */
+    static String[] ifLastPage(KeysetPage<?> page, String tag) {
+        return page.nextAfter() == null ? new String[]{tag} : new String[0];
+    }
+
+    private ResponseEntity<byte[]> serve(String key, WebRequest request, Supplier<Loaded> loader) {
+        CachedBody body = responseBodyCache.get(key);
+        if (body == null) {
+            String stamp = changeStamps.collections();
+            Loaded loaded = loader.get();
+            if (loaded == null) {
+                return ResponseEntity.notFound().build();
+            }
+            body = encode(loaded);
+            responseBodyCache.put(key, body, loaded.tags());
+            if (!stamp.equals(changeStamps.collections())) {
+                responseBodyCache.invalidate(key);
+                logger.debug("Dropped response body for key {} loaded during a write", key);
+            }
+        } else {
+            logger.debug("Returning cached response body for key: {}", key);
+        }
+        ResponseEntity.BodyBuilder response = body.pageLimit() != null
+                ? PageResponses.ok(body.nextAfter(), body.pageLimit())
+                : ResponseEntity.ok();
+        response.contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (body.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    private CachedBody encode(Loaded loaded) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(loaded.value());
+            return new CachedBody(json, json.length >= gzipMinSize ? gzip(json) : null,
+                    loaded.nextAfter(), loaded.pageLimit());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response body", e);
+        }
+    }
+
+    static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // An explicit gzip entry wins over *; q=0 refuses the coding
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].replace(" ", "").matches("q=0(\\.0*)?")) {
+                    accepted = false;
+                }
+            }
+            if (name.equalsIgnoreCase("gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+}
@@ -1,17 +1,44 @@
 package com.example.lab6.controller;
 
+import com.example.lab6.cache.CacheTags;
+import com.example.lab6.dto.BatchFetchRequest;
+import com.example.lab6.dto.BatchFetchResult;
+import com.example.lab6.dto.DeduplicationReport;
+import com.example.lab6.dto.SunriseSunsetImportReport;
+import com.example.lab6.dto.SunriseSunsetMatch;
 import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.service.ChangeStamps;
+import com.example.lab6.service.Pages;
+import com.example.lab6.service.SunriseSunsetBatchService;
+import com.example.lab6.service.SunriseSunsetDeduplicationService;
+import com.example.lab6.service.SunriseSunsetExportService;
+import com.example.lab6.service.SunriseSunsetImportService;
 import com.example.lab6.service.SunriseSunsetService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequiredArgsConstructor
@@ -19,7 +46,16 @@ import java.util.Map;
 public class SunriseSunsetController {
 
     private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetController.class);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
     private final SunriseSunsetService sunriseSunsetService;
+    private final SunriseSunsetBatchService sunriseSunsetBatchService;
+    private final SunriseSunsetDeduplicationService sunriseSunsetDeduplicationService;
+    private final SunriseSunsetExportService sunriseSunsetExportService;
+    private final SunriseSunsetImportService sunriseSunsetImportService;
+    private final ChangeStamps changeStamps;
+    private final ResponseBodies responseBodies;
+    private final Pages pages;
 
     @Value("${sunrise-sunset.latitude:54.3000}")
     private double defaultLatitude;
@@ -28,46 +64,159 @@ public class SunriseSunsetController {
     private double defaultLongitude;
 
     @GetMapping
-    public ResponseEntity<List<SunriseSunset>> getAll() {
-        logger.info("Getting all sunrise/sunset records");
-        return ResponseEntity.ok(sunriseSunsetService.getAll());
+    public ResponseEntity<byte[]> getAll(@RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) List<String> expand,
+                                         WebRequest request) {
+        logger.info("Getting sunrise/sunset records after ID: {}, limit: {}", after, limit);
+        boolean expandLocations = Expansions.requested(expand, "locations");
+        if (ConditionalResponses.notModified(request, changeStamps.collections(), changeStamps.lastModified())) {
+            return null;
+        }
+        int pageLimit = pages.resolveLimit(limit);
+        String key = "sunrise_sunset_page_" + (after != null ? after : 0) + "_" + pageLimit
+                + (expandLocations ? "_expanded" : "");
+        return responseBodies.page(key, request, () -> sunriseSunsetService.getPage(after, pageLimit, expandLocations),
+                page -> CacheTags.forSunriseSunsetViews(page.items(),
+                        ResponseBodies.ifLastPage(page, CacheTags.ALL_SUNRISE_SUNSETS)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<SunriseSunset> getById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getById(@PathVariable Long id, WebRequest request) {
         logger.info("Getting sunrise/sunset by ID: {}", id);
-        return sunriseSunsetService.getById(id)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+        // The entity embeds its locations, whose changes do not bump the record version
+        String linkedStamp = changeStamps.locations();
+        Optional<Long> version = sunriseSunsetService.getVersion(id);
+        if (version.isPresent()
+                && ConditionalResponses.notModified(request, "sunrise-sunset-" + version.get() + "-" + linkedStamp)) {
+            return null;
+        }
+        return responseBodies.one("sunrise_sunset_" + id, request, () -> sunriseSunsetService.getById(id),
+                List.of(CacheTags.sunriseSunset(id)));
     }
 
     @GetMapping("/by-date")
-    public ResponseEntity<?> getByDate(@RequestParam(required = false) String date) {
-        if (date == null || date.trim().isEmpty()) {
+    public ResponseEntity<?> getByDate(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            WebRequest request) {
+        if (date == null) {
             logger.warn("Date parameter is missing or empty");
             return ResponseEntity.badRequest().body("Date parameter is required");
         }
+        if (ConditionalResponses.notModified(request, changeStamps.collections(), changeStamps.lastModified())) {
+            return null;
+        }
         try {
             logger.info("Getting sunrise/sunset records by date: {}", date);
-            List<SunriseSunset> sunriseSunsets = sunriseSunsetService.getByDate(date);
-            return ResponseEntity.ok(sunriseSunsets);
+            return responseBodies.list("sunrise_sunset_date_" + date, request,
+                    () -> sunriseSunsetService.getByDate(date),
+                    sunriseSunsets -> CacheTags.forSunriseSunsets(sunriseSunsets, CacheTags.date(date)));
         } catch (Exception e) {
             logger.error("Error while fetching sunrise/sunset records by date: {}", date, e);
             return ResponseEntity.status(500).body("Internal server error: " + e.getMessage());
         }
     }
 
+    @GetMapping("/by-date-range")
+    public ResponseEntity<List<SunriseSunset>> getByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        logger.info("Getting sunrise/sunset records by date range: {} - {}", from, to);
+        if (ConditionalResponses.notModified(request, changeStamps.collections(), changeStamps.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(sunriseSunsetService.getByDateRange(from, to));
+    }
+
+    @GetMapping("/nearest")
+    public ResponseEntity<SunriseSunsetMatch> getNearest(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "10") double maxDistanceKm) {
+        logger.info("Getting nearest sunrise/sunset record - lat: {}, lon: {}, date: {}, max: {} km",
+                latitude, longitude, date, maxDistanceKm);
+        return sunriseSunsetService.findNearest(latitude, longitude, date, maxDistanceKm)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/within")
+    public ResponseEntity<List<SunriseSunsetMatch>> getWithin(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam double radiusKm) {
+        logger.info("Getting sunrise/sunset records within {} km - lat: {}, lon: {}, date: {}",
+                radiusKm, latitude, longitude, date);
+        return ResponseEntity.ok(sunriseSunsetService.findWithin(latitude, longitude, date, radiusKm));
+    }
+
+    /**
+     * Streams all records as NDJSON, gzip-encoded when {@code gzip=true}.
+     */
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        logger.info("Exporting sunrise/sunset records, gzip: {}", gzip);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"sunrise-sunset.ndjson\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        try (OutputStream out = gzip
+                ? new GZIPOutputStream(response.getOutputStream(), STREAM_BUFFER_SIZE)
+                : new BufferedOutputStream(response.getOutputStream(), STREAM_BUFFER_SIZE)) {
+            sunriseSunsetExportService.exportNdjson(out);
+        }
+    }
+
+    /**
+     * Bulk-loads CSV ({@code text/csv}) or NDJSON records from the request body, which may be
+     * gzip-encoded.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", NDJSON})
+    public ResponseEntity<SunriseSunsetImportReport> importRecords(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body) throws IOException {
+        SunriseSunsetImportService.Format format = MediaType.valueOf("text/csv").includes(contentType)
+                ? SunriseSunsetImportService.Format.CSV
+                : SunriseSunsetImportService.Format.NDJSON;
+        logger.info("Importing sunrise/sunset records, format: {}, encoding: {}", format, contentEncoding);
+        InputStream in = "gzip".equalsIgnoreCase(contentEncoding)
+                ? new GZIPInputStream(body, STREAM_BUFFER_SIZE)
+                : body;
+        return ResponseEntity.ok(sunriseSunsetImportService.importRecords(in, format));
+    }
+
     @GetMapping("/fetch")
-    public ResponseEntity<Map<String, Object>> fetchSunriseSunset(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> fetchSunriseSunset(
             @RequestParam(required = false) Double latitude,
             @RequestParam(required = false) Double longitude,
             @RequestParam(required = false) String date,
-            @RequestParam(required = false) List<Long> locationIds) {
+            @RequestParam(required = false) List<Long> locationIds,
+            @RequestParam(required = false) Double toleranceKm) {
         double lat = latitude != null ? latitude : defaultLatitude;
         double lon = longitude != null ? longitude : defaultLongitude;
         logger.info("Fetching sunrise/sunset - lat: {}, lon: {}, date: {}, locations: {}", lat, lon, date, locationIds);
-        Map<String, Object> response = sunriseSunsetService.getSunriseSunset(lat, lon, date, locationIds);
-        return ResponseEntity.ok(response);
+        return sunriseSunsetService.getSunriseSunsetAsync(lat, lon, date, locationIds, toleranceKm)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/fetch/batch")
+    public ResponseEntity<List<BatchFetchResult>> fetchBatch(@RequestBody List<BatchFetchRequest> requests) {
+        logger.info("Batch fetching sunrise/sunset for {} items", requests.size());
+        return ResponseEntity.ok(sunriseSunsetBatchService.fetchBatch(requests));
+    }
+
+    @PostMapping("/dedup")
+    public ResponseEntity<DeduplicationReport> deduplicate() {
+        logger.info("Deduplicating sunrise/sunset records");
+        return ResponseEntity.ok(sunriseSunsetDeduplicationService.deduplicate());
     }
 
     @PostMapping
@@ -0,0 +1,6 @@
+package com.example.lab6.dto;
+
+import java.util.List;
+
+public record BatchFetchRequest(Double latitude, Double longitude, String date, List<Long> locationIds) {
+}
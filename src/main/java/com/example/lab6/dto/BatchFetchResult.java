@@ -0,0 +1,33 @@
+package com.example.lab6.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalTime;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchFetchResult(
+        int index,
+        Status status,
+        Long id,
+        LocalTime sunrise,
+        LocalTime sunset,
+        String error) {
+
+    public enum Status {
+        OK,
+        INVALID,
+        FAILED
+    }
+
+    public static BatchFetchResult ok(int index, Long id, LocalTime sunrise, LocalTime sunset) {
+        return new BatchFetchResult(index, Status.OK, id, sunrise, sunset, null);
+    }
+
+    public static BatchFetchResult invalid(int index, String error) {
+        return new BatchFetchResult(index, Status.INVALID, null, null, null, error);
+    }
+
+    public static BatchFetchResult failed(int index, String error) {
+        return new BatchFetchResult(index, Status.FAILED, null, null, null, error);
+    }
+}
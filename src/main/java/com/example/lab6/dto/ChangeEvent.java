@@ -0,0 +1,27 @@
+package com.example.lab6.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One committed write, as pushed by {@code GET /api/changes}. {@code id} is also the SSE event id
+ * a client sends back as {@code Last-Event-ID} to resume.
+ */
+public record ChangeEvent(
+        String id,
+        String entity,
+        Type type,
+        List<Long> ids,
+        Instant time) {
+
+    public static final String LOCATION = "location";
+    public static final String SUNRISE_SUNSET = "sunrise-sunset";
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        // Written through the natural-key upsert, which creates or updates the row
+        UPSERTED
+    }
+}
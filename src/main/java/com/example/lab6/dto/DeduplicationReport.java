@@ -0,0 +1,8 @@
+package com.example.lab6.dto;
+
+public record DeduplicationReport(
+        int scannedRows,
+        int mergedGroups,
+        int removedRows,
+        int rekeyedRows) {
+}
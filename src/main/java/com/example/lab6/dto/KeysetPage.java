@@ -0,0 +1,29 @@
+package com.example.lab6.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of an id-ordered listing. {@code nextAfter} is the cursor for the following page, or
+ * {@code null} when this page was not full and so is the last one.
+ */
+public record KeysetPage<T>(List<T> items, int limit, Long nextAfter) {
+
+    public static <T> KeysetPage<T> of(List<T> items, int limit, Function<T, Long> idOf) {
+        Long nextAfter = items.size() == limit ? idOf.apply(items.get(items.size() - 1)) : null;
+        return new KeysetPage<>(items, limit, nextAfter);
+    }
+
+    /**
+     * Applies the default when no limit was requested and caps it at {@code maxLimit}.
+     */
+    public static int resolveLimit(Integer requested, int defaultLimit, int maxLimit) {
+        if (requested == null) {
+            return Math.min(defaultLimit, maxLimit);
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(requested, maxLimit);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.lab6.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LocationBulkResult(
+        int index,
+        Status status,
+        Long id,
+        String error) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED
+    }
+
+    public static LocationBulkResult created(int index, Long id) {
+        return new LocationBulkResult(index, Status.CREATED, id, null);
+    }
+
+    public static LocationBulkResult updated(int index, Long id) {
+        return new LocationBulkResult(index, Status.UPDATED, id, null);
+    }
+
+    public static LocationBulkResult failed(int index, String error) {
+        return new LocationBulkResult(index, Status.FAILED, null, error);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.lab6.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Read model of a location: linked sunrise/sunset records as ids, and as records only when expanded.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LocationView(
+        Long id,
+        String name,
+        String country,
+        List<Long> sunriseSunsetIds,
+        List<SunriseSunsetView> sunriseSunsets) {
+
+    // JPQL constructor expression
+    public LocationView(Long id, String name, String country) {
+        this(id, name, country, null, null);
+    }
+
+    public LocationView withLinks(List<Long> sunriseSunsetIds, List<SunriseSunsetView> sunriseSunsets) {
+        return new LocationView(id, name, country, sunriseSunsetIds, sunriseSunsets);
+    }
+}
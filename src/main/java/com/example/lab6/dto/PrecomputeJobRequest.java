@@ -0,0 +1,15 @@
+package com.example.lab6.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Date range to precompute for a set of locations. Targets without coordinates use those of the
+ * location's most recent sunrise/sunset record; an empty target list means every stored location.
+ */
+public record PrecomputeJobRequest(List<Target> locations, LocalDate from, LocalDate to, Instant startAt) {
+
+    public record Target(Long locationId, Double latitude, Double longitude) {
+    }
+}
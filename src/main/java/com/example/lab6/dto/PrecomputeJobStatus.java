@@ -0,0 +1,23 @@
+package com.example.lab6.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+public record PrecomputeJobStatus(
+        String id,
+        String state,
+        LocalDate from,
+        LocalDate to,
+        int locations,
+        long totalRows,
+        long processedRows,
+        long savedRows,
+        long failedRows,
+        long chunksWritten,
+        double rowsPerSecond,
+        Instant submittedAt,
+        Instant startedAt,
+        Instant finishedAt,
+        List<String> errors) {
+}
@@ -0,0 +1,15 @@
+package com.example.lab6.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public record SunriseSunsetExportRecord(
+        Long id,
+        double latitude,
+        double longitude,
+        LocalDate date,
+        LocalTime sunrise,
+        LocalTime sunset,
+        List<Long> locationIds) {
+}
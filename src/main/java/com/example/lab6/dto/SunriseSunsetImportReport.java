@@ -0,0 +1,10 @@
+package com.example.lab6.dto;
+
+import java.util.List;
+
+public record SunriseSunsetImportReport(
+        long acceptedRows,
+        long rejectedRows,
+        int chunksWritten,
+        List<String> errors) {
+}
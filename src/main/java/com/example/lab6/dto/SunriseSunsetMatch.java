@@ -0,0 +1,4 @@
+package com.example.lab6.dto;
+
+public record SunriseSunsetMatch(SunriseSunsetView sunriseSunset, double distanceKm) {
+}
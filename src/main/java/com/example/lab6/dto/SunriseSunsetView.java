@@ -0,0 +1,32 @@
+package com.example.lab6.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Read model of a sunrise/sunset record: linked locations as ids, and as locations only when expanded.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SunriseSunsetView(
+        Long id,
+        double latitude,
+        double longitude,
+        LocalDate date,
+        LocalTime sunrise,
+        LocalTime sunset,
+        List<Long> locationIds,
+        List<LocationView> locations) {
+
+    // JPQL constructor expression
+    public SunriseSunsetView(Long id, double latitude, double longitude, LocalDate date, LocalTime sunrise,
+                             LocalTime sunset) {
+        this(id, latitude, longitude, date, sunrise, sunset, null, null);
+    }
+
+    public SunriseSunsetView withLinks(List<Long> locationIds, List<LocationView> locations) {
+        return new SunriseSunsetView(id, latitude, longitude, date, sunrise, sunset, locationIds, locations);
+    }
+}
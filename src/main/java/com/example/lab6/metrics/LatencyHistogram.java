@@ -0,0 +1,78 @@
+package com.example.lab6.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with exponentially sized buckets from 1 microsecond to about a minute,
+ * four buckets per doubling. Percentiles are reported as the upper bound of their bucket.
+ */
+class LatencyHistogram {
+
+    private static final long[] BOUNDS_NANOS = bounds();
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        int index = Arrays.binarySearch(BOUNDS_NANOS, nanos);
+        buckets[index >= 0 ? index : -index - 1].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    double meanMillis() {
+        long count = count();
+        return count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+    }
+
+    double maxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    double percentileMillis(double percentile) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS_NANOS.length ? BOUNDS_NANOS[i] / 1e6 : maxMillis();
+            }
+        }
+        return maxMillis();
+    }
+
+    private static long[] bounds() {
+        int steps = 4 * 26;
+        long[] bounds = new long[steps];
+        for (int i = 0; i < steps; i++) {
+            bounds[i] = Math.round(1_000 * Math.pow(2, i / 4.0));
+        }
+        return bounds;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.lab6.metrics;
+
+public record MethodMetricsSnapshot(
+        String method,
+        long count,
+        long errors,
+        double ratePerSecond1m,
+        double ratePerSecond5m,
+        double meanMs,
+        double p50Ms,
+        double p95Ms,
+        double p99Ms,
+        double maxMs) {
+}
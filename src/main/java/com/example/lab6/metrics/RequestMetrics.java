@@ -0,0 +1,77 @@
+package com.example.lab6.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-method call counts, windowed rates and latency percentiles. Recording only touches
+ * {@link LongAdder} cells, so concurrent requests do not serialize on a shared lock.
+ */
+@Component
+public class RequestMetrics {
+
+    private static final int WINDOW_SECONDS = 301;
+
+    private final ConcurrentHashMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final LongSupplier clockSeconds;
+
+    public RequestMetrics() {
+        this(() -> TimeUnit.NANOSECONDS.toSeconds(System.nanoTime()));
+    }
+
+    RequestMetrics(LongSupplier clockSeconds) {
+        this.clockSeconds = clockSeconds;
+    }
+
+    public void record(String method, long nanos, boolean failed) {
+        MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method, m -> new MethodMetrics(clockSeconds));
+        }
+        metrics.record(nanos, failed);
+    }
+
+    public List<MethodMetricsSnapshot> snapshot() {
+        return methods.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparing(MethodMetricsSnapshot::method))
+                .toList();
+    }
+
+    public void reset() {
+        methods.clear();
+    }
+
+    private static final class MethodMetrics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final SlidingWindowCounter window;
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private MethodMetrics(LongSupplier clockSeconds) {
+            this.window = new SlidingWindowCounter(WINDOW_SECONDS, clockSeconds);
+        }
+
+        private void record(long nanos, boolean failed) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            window.increment();
+            latency.record(nanos);
+        }
+
+        private MethodMetricsSnapshot snapshot(String method) {
+            return new MethodMetricsSnapshot(method, count.sum(), errors.sum(),
+                    window.ratePerSecond(60), window.ratePerSecond(300),
+                    latency.meanMillis(), latency.percentileMillis(50), latency.percentileMillis(95),
+                    latency.percentileMillis(99), latency.maxMillis());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.lab6.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Event counts over the last few minutes in one-second buckets. A bucket is recycled when its second
+ * comes round again, so counts racing with a recycle may be dropped; rates are approximate by design.
+ */
+class SlidingWindowCounter {
+
+    private final int windowSeconds;
+    private final LongAdder[] counts;
+    private final AtomicLongArray seconds;
+    private final LongSupplier clockSeconds;
+
+    SlidingWindowCounter(int windowSeconds, LongSupplier clockSeconds) {
+        this.windowSeconds = windowSeconds;
+        this.counts = new LongAdder[windowSeconds];
+        this.seconds = new AtomicLongArray(windowSeconds);
+        this.clockSeconds = clockSeconds;
+        for (int i = 0; i < windowSeconds; i++) {
+            counts[i] = new LongAdder();
+            seconds.set(i, -1);
+        }
+    }
+
+    void increment() {
+        long now = clockSeconds.getAsLong();
+        int index = (int) Math.floorMod(now, (long) windowSeconds);
+        long stamp = seconds.get(index);
+        if (stamp != now && seconds.compareAndSet(index, stamp, now)) {
+            counts[index].reset();
+        }
+        counts[index].increment();
+    }
+
+    /**
+     * Events per second over the last {@code window} seconds, excluding the current partial second.
+     */
+    double ratePerSecond(int window) {
+        int span = Math.min(window, windowSeconds - 1);
+        long now = clockSeconds.getAsLong();
+        long total = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            long stamp = seconds.get(i);
+            if (stamp < now && stamp >= now - span) {
+                total += counts[i].sum();
+            }
+        }
+        return (double) total / span;
+    }
+}
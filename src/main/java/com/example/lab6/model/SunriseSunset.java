@@ -1,21 +1,42 @@
 package com.example.lab6.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "sunrise_sunset")
+@Table(name = "sunrise_sunset",
+        indexes = @Index(name = "idx_sunrise_sunset_date", columnList = "date"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_sunrise_sunset_natural_key",
+                columnNames = {"latitude_key", "longitude_key", "date"}))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 public class SunriseSunset {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sunrise_sunset_seq")
+    @SequenceGenerator(name = "sunrise_sunset_seq", sequenceName = "sunrise_sunset_seq", allocationSize = 50)
     private Long id;
 
+    // The native upsert leaves it to the column default and increments it on conflict
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @NotNull(message = "Latitude is mandatory")
     @Column(nullable = false)
     private double latitude;
@@ -24,18 +45,31 @@ public class SunriseSunset {
     @Column(nullable = false)
     private double longitude;
 
-    @NotBlank(message = "Date is mandatory")
+    // Coordinates quantized by SunriseSunsetKeys; together with date they identify a record
+    @JsonIgnore
+    @Column(name = "latitude_key")
+    private Long latitudeKey;
+
+    @JsonIgnore
+    @Column(name = "longitude_key")
+    private Long longitudeKey;
+
+    @NotNull(message = "Date is mandatory")
     @Column(nullable = false)
-    private String date;
+    private LocalDate date;
 
-    @NotBlank(message = "Sunrise time is mandatory")
+    // UTC, as returned by the provider
+    @NotNull(message = "Sunrise time is mandatory")
     @Column(nullable = false)
-    private String sunrise;
+    private LocalTime sunrise;
 
-    @NotBlank(message = "Sunset time is mandatory")
+    @NotNull(message = "Sunset time is mandatory")
     @Column(nullable = false)
-    private String sunset;
+    private LocalTime sunset;
 
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
             name = "sunrise_sunset_location",
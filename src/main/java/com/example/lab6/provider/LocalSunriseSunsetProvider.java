@@ -0,0 +1,52 @@
+package com.example.lab6.provider;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes sunrise/sunset in process with {@link SolarCalculator} instead of calling the remote API.
+ */
+@Component
+@ConditionalOnProperty(name = "sunrise-sunset.provider", havingValue = "local")
+public class LocalSunriseSunsetProvider implements SunriseSunsetProvider {
+
+    @Override
+    public Map<String, Object> fetch(double latitude, double longitude, String date) {
+        SolarTimes times = SolarCalculator.calculate(latitude, longitude, parseDate(date));
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("sunrise", SolarTimes.formatTime(times.sunrise()));
+        results.put("sunset", SolarTimes.formatTime(times.sunset()));
+        results.put("solar_noon", SolarTimes.formatTime(times.solarNoon()));
+        results.put("day_length", SolarTimes.formatDuration(times.dayLength()));
+        results.put("civil_twilight_begin", SolarTimes.formatTime(times.civilTwilightBegin()));
+        results.put("civil_twilight_end", SolarTimes.formatTime(times.civilTwilightEnd()));
+        results.put("nautical_twilight_begin", SolarTimes.formatTime(times.nauticalTwilightBegin()));
+        results.put("nautical_twilight_end", SolarTimes.formatTime(times.nauticalTwilightEnd()));
+        results.put("astronomical_twilight_begin", SolarTimes.formatTime(times.astronomicalTwilightBegin()));
+        results.put("astronomical_twilight_end", SolarTimes.formatTime(times.astronomicalTwilightEnd()));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("results", results);
+        response.put("status", "OK");
+        response.put("tzid", "UTC");
+        return response;
+    }
+
+    static LocalDate parseDate(String date) {
+        if (date == null || "today".equalsIgnoreCase(date)) {
+            return LocalDate.now(ZoneOffset.UTC);
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + date, e);
+        }
+    }
+}
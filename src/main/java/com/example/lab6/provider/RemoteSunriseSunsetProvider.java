@@ -0,0 +1,125 @@
+package com.example.lab6.provider;
+
+import com.example.lab6.exception.UpstreamUnavailableException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Calls api.sunrise-sunset.org without blocking the caller. Each request is bounded by a timeout,
+ * and the number of requests in flight is capped so a stalled upstream cannot pile up connections.
+ */
+@Component
+@ConditionalOnProperty(name = "sunrise-sunset.provider", havingValue = "remote", matchIfMissing = true)
+public class RemoteSunriseSunsetProvider implements SunriseSunsetProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteSunriseSunsetProvider.class);
+    private static final TypeReference<Map<String, Object>> RESPONSE_TYPE = new TypeReference<>() {
+    };
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String apiUrl;
+    private final Duration requestTimeout;
+    private final Semaphore permits;
+
+    public RemoteSunriseSunsetProvider(
+            HttpClient sunriseSunsetHttpClient,
+            ObjectMapper objectMapper,
+            @Value("${sunrise-sunset.api-url:https://api.sunrise-sunset.org/json}") String apiUrl,
+            @Value("${sunrise-sunset.http.request-timeout:5s}") Duration requestTimeout,
+            @Value("${sunrise-sunset.http.max-concurrent-requests:64}") int maxConcurrentRequests) {
+        this.httpClient = sunriseSunsetHttpClient;
+        this.objectMapper = objectMapper;
+        this.apiUrl = apiUrl;
+        this.requestTimeout = requestTimeout;
+        this.permits = new Semaphore(maxConcurrentRequests);
+    }
+
+    @Override
+    public Map<String, Object> fetch(double latitude, double longitude, String date) {
+        try {
+            return fetchAsync(latitude, longitude, date).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> fetchAsync(double latitude, double longitude, String date) {
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new UpstreamUnavailableException("Too many concurrent requests to the sunrise/sunset API"));
+        }
+        URI uri;
+        CompletableFuture<HttpResponse<byte[]>> call;
+        try {
+            uri = URI.create(String.format(Locale.ROOT, "%s?lat=%f&lng=%f&date=%s",
+                    apiUrl, latitude, longitude, URLEncoder.encode(date, StandardCharsets.UTF_8)));
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(requestTimeout)
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+            logger.debug("Requesting sunrise/sunset data: {}", uri);
+            call = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return call.handle((response, error) -> {
+            permits.release();
+            if (error != null) {
+                throw translate(uri, error);
+            }
+            return parse(uri, response);
+        });
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private Map<String, Object> parse(URI uri, HttpResponse<byte[]> response) {
+        try {
+            return objectMapper.readValue(response.body(), RESPONSE_TYPE);
+        } catch (IOException e) {
+            throw new UpstreamUnavailableException(
+                    "Unreadable response from " + uri + " (HTTP " + response.statusCode() + ")", e);
+        }
+    }
+
+    private static RuntimeException translate(URI uri, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException) {
+            return new UpstreamUnavailableException("Timed out calling " + uri, cause);
+        }
+        if (cause instanceof IOException) {
+            return new UpstreamUnavailableException("Failed to call " + uri + ": " + cause.getMessage(), cause);
+        }
+        return cause instanceof RuntimeException runtime ? runtime : new UpstreamUnavailableException(
+                "Failed to call " + uri, cause);
+    }
+}
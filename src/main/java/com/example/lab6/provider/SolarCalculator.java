@@ -0,0 +1,165 @@
+package com.example.lab6.provider;
+
+import java.time.LocalDate;
+
+/**
+ * Sunrise, sunset and twilight times after the NOAA solar calculator
+ * (Meeus, "Astronomical Algorithms"). Accurate to about a minute between the polar circles.
+ */
+public final class SolarCalculator {
+
+    private static final double JULIAN_DAY_UNIX_EPOCH = 2440587.5;
+    private static final double JULIAN_DAY_J2000 = 2451545.0;
+    private static final double DAYS_PER_CENTURY = 36525.0;
+    private static final double MINUTES_PER_DAY = 1440.0;
+
+    // Zenith angles of the sun's centre, including refraction and the solar disc radius for sunrise.
+    private static final double ZENITH_SUNRISE = 90.833;
+    private static final double ZENITH_CIVIL = 96.0;
+    private static final double ZENITH_NAUTICAL = 102.0;
+    private static final double ZENITH_ASTRONOMICAL = 108.0;
+
+    private static final int REFINEMENTS = 2;
+
+    private SolarCalculator() {
+    }
+
+    public static SolarTimes calculate(double latitude, double longitude, LocalDate date) {
+        if (latitude < -90 || latitude > 90) {
+            throw new IllegalArgumentException("Latitude out of range: " + latitude);
+        }
+        if (longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Longitude out of range: " + longitude);
+        }
+        double julianDay = date.toEpochDay() + JULIAN_DAY_UNIX_EPOCH;
+        double solarNoon = solarNoon(julianDay, longitude);
+        double sunrise = event(julianDay, latitude, longitude, solarNoon, ZENITH_SUNRISE, true);
+        double sunset = event(julianDay, latitude, longitude, solarNoon, ZENITH_SUNRISE, false);
+        return new SolarTimes(
+                solarNoon,
+                sunrise,
+                sunset,
+                event(julianDay, latitude, longitude, solarNoon, ZENITH_CIVIL, true),
+                event(julianDay, latitude, longitude, solarNoon, ZENITH_CIVIL, false),
+                event(julianDay, latitude, longitude, solarNoon, ZENITH_NAUTICAL, true),
+                event(julianDay, latitude, longitude, solarNoon, ZENITH_NAUTICAL, false),
+                event(julianDay, latitude, longitude, solarNoon, ZENITH_ASTRONOMICAL, true),
+                event(julianDay, latitude, longitude, solarNoon, ZENITH_ASTRONOMICAL, false),
+                dayLength(julianDay, latitude, solarNoon, sunrise, sunset));
+    }
+
+    private static double solarNoon(double julianDay, double longitude) {
+        double noon = 720 - 4 * longitude;
+        for (int i = 0; i < REFINEMENTS; i++) {
+            noon = 720 - 4 * longitude - equationOfTime(julianCentury(julianDay, noon));
+        }
+        return noon;
+    }
+
+    // Starts from solar noon and re-evaluates the sun's position at the estimated event time.
+    private static double event(double julianDay, double latitude, double longitude, double solarNoon,
+                                double zenith, boolean rising) {
+        double time = solarNoon;
+        for (int i = 0; i < REFINEMENTS; i++) {
+            double t = julianCentury(julianDay, time);
+            double hourAngle = hourAngle(latitude, declination(t), zenith);
+            if (Double.isNaN(hourAngle)) {
+                return Double.NaN;
+            }
+            double offset = 4 * hourAngle;
+            time = 720 - 4 * longitude - equationOfTime(t) + (rising ? -offset : offset);
+        }
+        return time;
+    }
+
+    private static double dayLength(double julianDay, double latitude, double solarNoon,
+                                    double sunrise, double sunset) {
+        if (!Double.isNaN(sunrise) && !Double.isNaN(sunset)) {
+            return sunset - sunrise;
+        }
+        double cosHourAngle = cosHourAngle(latitude, declination(julianCentury(julianDay, solarNoon)),
+                ZENITH_SUNRISE);
+        return cosHourAngle < -1 ? MINUTES_PER_DAY : 0;
+    }
+
+    private static double julianCentury(double julianDay, double minutes) {
+        return (julianDay + minutes / MINUTES_PER_DAY - JULIAN_DAY_J2000) / DAYS_PER_CENTURY;
+    }
+
+    private static double hourAngle(double latitude, double declination, double zenith) {
+        double cos = cosHourAngle(latitude, declination, zenith);
+        if (cos > 1 || cos < -1) {
+            return Double.NaN;
+        }
+        return Math.toDegrees(Math.acos(cos));
+    }
+
+    private static double cosHourAngle(double latitude, double declination, double zenith) {
+        double lat = Math.toRadians(latitude);
+        return Math.cos(Math.toRadians(zenith)) / (Math.cos(lat) * Math.cos(declination))
+                - Math.tan(lat) * Math.tan(declination);
+    }
+
+    private static double geomMeanLongSun(double t) {
+        double l0 = (280.46646 + t * (36000.76983 + t * 0.0003032)) % 360;
+        return l0 < 0 ? l0 + 360 : l0;
+    }
+
+    private static double geomMeanAnomalySun(double t) {
+        return 357.52911 + t * (35999.05029 - 0.0001537 * t);
+    }
+
+    private static double eccentricityEarthOrbit(double t) {
+        return 0.016708634 - t * (0.000042037 + 0.0000001267 * t);
+    }
+
+    private static double sunEquationOfCenter(double t) {
+        double m = Math.toRadians(geomMeanAnomalySun(t));
+        return Math.sin(m) * (1.914602 - t * (0.004817 + 0.000014 * t))
+                + Math.sin(2 * m) * (0.019993 - 0.000101 * t)
+                + Math.sin(3 * m) * 0.000289;
+    }
+
+    private static double sunApparentLong(double t) {
+        double trueLong = geomMeanLongSun(t) + sunEquationOfCenter(t);
+        double omega = 125.04 - 1934.136 * t;
+        return trueLong - 0.00569 - 0.00478 * Math.sin(Math.toRadians(omega));
+    }
+
+    private static double obliquityCorrection(double t) {
+        double seconds = 21.448 - t * (46.8150 + t * (0.00059 - t * 0.001813));
+        double meanObliquity = 23.0 + (26.0 + seconds / 60.0) / 60.0;
+        double omega = 125.04 - 1934.136 * t;
+        return meanObliquity + 0.00256 * Math.cos(Math.toRadians(omega));
+    }
+
+    /**
+     * Solar declination in radians.
+     */
+    private static double declination(double t) {
+        double epsilon = Math.toRadians(obliquityCorrection(t));
+        double lambda = Math.toRadians(sunApparentLong(t));
+        return Math.asin(Math.sin(epsilon) * Math.sin(lambda));
+    }
+
+    /**
+     * Equation of time in minutes.
+     */
+    private static double equationOfTime(double t) {
+        double epsilon = Math.toRadians(obliquityCorrection(t));
+        double l0 = Math.toRadians(geomMeanLongSun(t));
+        double e = eccentricityEarthOrbit(t);
+        double m = Math.toRadians(geomMeanAnomalySun(t));
+        double y = Math.tan(epsilon / 2);
+        y *= y;
+
+        double sin2l0 = Math.sin(2 * l0);
+        double sinm = Math.sin(m);
+        double eqTime = y * sin2l0
+                - 2 * e * sinm
+                + 4 * e * y * sinm * Math.cos(2 * l0)
+                - 0.5 * y * y * Math.sin(4 * l0)
+                - 1.25 * e * e * Math.sin(2 * m);
+        return Math.toDegrees(eqTime) * 4;
+    }
+}
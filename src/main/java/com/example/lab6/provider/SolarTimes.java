@@ -0,0 +1,58 @@
+package com.example.lab6.provider;
+
+/**
+ * Solar events of one day as minutes after 00:00 UTC. An event that does not happen on that day
+ * (polar day or night) is {@link Double#NaN}.
+ */
+public record SolarTimes(
+        double solarNoon,
+        double sunrise,
+        double sunset,
+        double civilTwilightBegin,
+        double civilTwilightEnd,
+        double nauticalTwilightBegin,
+        double nauticalTwilightEnd,
+        double astronomicalTwilightBegin,
+        double astronomicalTwilightEnd,
+        double dayLength) {
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    // The remote API reports events that do not occur as one second past midnight.
+    private static final String NO_EVENT = "12:00:01 AM";
+
+    /**
+     * Formats minutes after midnight UTC the way the remote API does, e.g. {@code 7:27:02 AM}.
+     */
+    public static String formatTime(double minutes) {
+        if (Double.isNaN(minutes)) {
+            return NO_EVENT;
+        }
+        int seconds = Math.floorMod(Math.round(minutes * 60), SECONDS_PER_DAY);
+        int hours = seconds / 3600;
+        int displayHours = hours % 12 == 0 ? 12 : hours % 12;
+        StringBuilder builder = new StringBuilder(11);
+        builder.append(displayHours).append(':');
+        appendTwoDigits(builder, seconds / 60 % 60).append(':');
+        appendTwoDigits(builder, seconds % 60);
+        return builder.append(hours < 12 ? " AM" : " PM").toString();
+    }
+
+    /**
+     * Formats a duration in minutes as {@code H:MM:SS}.
+     */
+    public static String formatDuration(double minutes) {
+        long seconds = Math.round(minutes * 60);
+        StringBuilder builder = new StringBuilder(8);
+        builder.append(seconds / 3600).append(':');
+        appendTwoDigits(builder, (int) (seconds / 60 % 60)).append(':');
+        return appendTwoDigits(builder, (int) (seconds % 60)).toString();
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+        if (value < 10) {
+            builder.append('0');
+        }
+        return builder.append(value);
+    }
+}
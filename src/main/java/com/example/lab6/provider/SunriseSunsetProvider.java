@@ -0,0 +1,24 @@
+package com.example.lab6.provider;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of sunrise/sunset data. Responses follow the api.sunrise-sunset.org shape:
+ * a {@code results} map of formatted UTC times and a {@code status} field.
+ */
+public interface SunriseSunsetProvider {
+
+    Map<String, Object> fetch(double latitude, double longitude, String date);
+
+    /**
+     * Non-blocking variant of {@link #fetch}. Providers that do no I/O complete the future in the calling thread.
+     */
+    default CompletableFuture<Map<String, Object>> fetchAsync(double latitude, double longitude, String date) {
+        try {
+            return CompletableFuture.completedFuture(fetch(latitude, longitude, date));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
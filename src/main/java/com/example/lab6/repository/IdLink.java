@@ -0,0 +1,24 @@
+package com.example.lab6.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One row of the sunrise/sunset to location join table, seen from the {@code ownerId} side.
+ */
+public record IdLink(Long ownerId, Long linkedId) {
+
+    /**
+     * Linked ids per owner, in the order of {@code links}.
+     */
+    public static Map<Long, List<Long>> groupByOwner(Collection<IdLink> links) {
+        Map<Long, List<Long>> grouped = new LinkedHashMap<>();
+        for (IdLink link : links) {
+            grouped.computeIfAbsent(link.ownerId(), id -> new ArrayList<>()).add(link.linkedId());
+        }
+        return grouped;
+    }
+}
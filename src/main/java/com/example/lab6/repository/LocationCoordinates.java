@@ -0,0 +1,8 @@
+package com.example.lab6.repository;
+
+/**
+ * A location with the coordinates of its most recent sunrise/sunset record, or {@code null} coordinates
+ * when it has none.
+ */
+public record LocationCoordinates(Long locationId, Double latitude, Double longitude) {
+}
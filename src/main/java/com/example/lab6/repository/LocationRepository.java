@@ -1,11 +1,18 @@
 package com.example.lab6.repository;
 
+import com.example.lab6.dto.LocationView;
 import com.example.lab6.model.Location;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,8 +24,49 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
     @EntityGraph(attributePaths = {"sunriseSunsets"})
     Optional<Location> findById(Long id);
 
+    @Query("SELECT l.version FROM Location l WHERE l.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT new com.example.lab6.dto.LocationView(l.id, l.name, l.country) " +
+            "FROM Location l WHERE l.id > :after ORDER BY l.id")
+    List<LocationView> findViewsAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("SELECT new com.example.lab6.repository.IdLink(l.id, ss.id) " +
+            "FROM SunriseSunset ss JOIN ss.locations l WHERE l.id IN :ids ORDER BY l.id, ss.id")
+    List<IdLink> findSunriseSunsetLinks(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.lab6.repository.LocationCoordinates(l.id, ss.latitude, ss.longitude) " +
+            "FROM Location l LEFT JOIN SunriseSunset ss ON ss.id = " +
+            "(SELECT MAX(s.id) FROM SunriseSunset s JOIN s.locations sl WHERE sl.id = l.id) " +
+            "ORDER BY l.id")
+    List<LocationCoordinates> findAllCoordinates();
+
+    @Query("SELECT new com.example.lab6.repository.LocationCoordinates(l.id, ss.latitude, ss.longitude) " +
+            "FROM Location l LEFT JOIN SunriseSunset ss ON ss.id = " +
+            "(SELECT MAX(s.id) FROM SunriseSunset s JOIN s.locations sl WHERE sl.id = l.id) " +
+            "WHERE l.id IN :ids ORDER BY l.id")
+    List<LocationCoordinates> findCoordinatesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.lab6.dto.LocationView(l.id, l.name, l.country) " +
+            "FROM Location l WHERE l.id IN :ids ORDER BY l.id")
+    List<LocationView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"sunriseSunsets"})
+    @Query("SELECT l FROM Location l WHERE l.id IN :ids ORDER BY l.id")
+    List<Location> findAllByIdInOrderById(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.locations-by-date")
+    })
     @Query("SELECT l FROM Location l JOIN l.sunriseSunsets ss " +
             "WHERE ss.date = :date " +
             "ORDER BY l.name")
-    List<Location> findLocationsBySunriseSunsetDate(@Param("date") String date);
+    List<Location> findLocationsBySunriseSunsetDate(@Param("date") LocalDate date);
+
+    @Query("SELECT DISTINCT l FROM Location l JOIN l.sunriseSunsets ss " +
+            "WHERE ss.date BETWEEN :from AND :to " +
+            "ORDER BY l.name")
+    List<Location> findLocationsBySunriseSunsetDateBetween(@Param("from") LocalDate from,
+                                                           @Param("to") LocalDate to);
 }
\ No newline at end of file
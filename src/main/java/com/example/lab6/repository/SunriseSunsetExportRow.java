@@ -0,0 +1,18 @@
+package com.example.lab6.repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * One row of the export join: a sunrise/sunset record with one of its location ids, or a
+ * {@code null} location id when it has none.
+ */
+public record SunriseSunsetExportRow(
+        Long id,
+        double latitude,
+        double longitude,
+        LocalDate date,
+        LocalTime sunrise,
+        LocalTime sunset,
+        Long locationId) {
+}
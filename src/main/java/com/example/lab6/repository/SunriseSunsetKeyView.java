@@ -0,0 +1,12 @@
+package com.example.lab6.repository;
+
+import java.time.LocalDate;
+
+public record SunriseSunsetKeyView(
+        Long id,
+        double latitude,
+        double longitude,
+        LocalDate date,
+        Long latitudeKey,
+        Long longitudeKey) {
+}
@@ -1,15 +1,25 @@
 package com.example.lab6.repository;
 
+import com.example.lab6.dto.SunriseSunsetView;
 import com.example.lab6.model.SunriseSunset;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface SunriseSunsetRepository extends JpaRepository<SunriseSunset, Long> {
+public interface SunriseSunsetRepository
+        extends JpaRepository<SunriseSunset, Long>, SunriseSunsetUpsertRepository {
 
     @EntityGraph(attributePaths = {"locations"})
     List<SunriseSunset> findAll();
@@ -17,7 +27,76 @@ public interface SunriseSunsetRepository extends JpaRepository<SunriseSunset, Lo
     @EntityGraph(attributePaths = {"locations"})
     Optional<SunriseSunset> findById(Long id);
 
+    @Query("SELECT ss.version FROM SunriseSunset ss WHERE ss.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT new com.example.lab6.dto.SunriseSunsetView(" +
+            "ss.id, ss.latitude, ss.longitude, ss.date, ss.sunrise, ss.sunset) " +
+            "FROM SunriseSunset ss WHERE ss.id > :after ORDER BY ss.id")
+    List<SunriseSunsetView> findViewsAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("SELECT new com.example.lab6.repository.IdLink(ss.id, l.id) " +
+            "FROM SunriseSunset ss JOIN ss.locations l WHERE ss.id IN :ids ORDER BY ss.id, l.id")
+    List<IdLink> findLocationLinks(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.lab6.dto.SunriseSunsetView(" +
+            "ss.id, ss.latitude, ss.longitude, ss.date, ss.sunrise, ss.sunset) " +
+            "FROM SunriseSunset ss WHERE ss.id IN :ids ORDER BY ss.id")
+    List<SunriseSunsetView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
     @EntityGraph(attributePaths = {"locations"})
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.sunrise-sunset-by-date")
+    })
     @Query("SELECT ss FROM SunriseSunset ss WHERE ss.date = :date")
-    List<SunriseSunset> findByDate(@Param("date") String date);
+    List<SunriseSunset> findByDate(@Param("date") LocalDate date);
+
+    @EntityGraph(attributePaths = {"locations"})
+    @Query("SELECT ss FROM SunriseSunset ss WHERE ss.date BETWEEN :from AND :to ORDER BY ss.date, ss.id")
+    List<SunriseSunset> findByDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @EntityGraph(attributePaths = {"locations"})
+    Optional<SunriseSunset> findByLatitudeKeyAndLongitudeKeyAndDate(Long latitudeKey, Long longitudeKey,
+                                                                    LocalDate date);
+
+    /**
+     * Every record joined with its location ids, ordered so that the rows of one record are adjacent.
+     * Rows are DTOs rather than entities, so nothing accumulates in the persistence context while the
+     * stream is read; the fetch size keeps the JDBC driver from buffering the whole result.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.lab6.repository.SunriseSunsetExportRow(" +
+            "ss.id, ss.latitude, ss.longitude, ss.date, ss.sunrise, ss.sunset, l.id) " +
+            "FROM SunriseSunset ss LEFT JOIN ss.locations l ORDER BY ss.id, l.id")
+    Stream<SunriseSunsetExportRow> streamExportRows();
+
+    @Query("SELECT new com.example.lab6.repository.SunriseSunsetKeyView(" +
+            "ss.id, ss.latitude, ss.longitude, ss.date, ss.latitudeKey, ss.longitudeKey) " +
+            "FROM SunriseSunset ss ORDER BY ss.id")
+    List<SunriseSunsetKeyView> findAllKeyViews();
+
+    /**
+     * Clears the natural keys that are missing or differ from the coordinates rounded at {@code scale}. Keys are
+     * rounded half up, as {@code Math.round} does.
+     */
+    @Modifying
+    @Query("UPDATE SunriseSunset ss SET ss.latitudeKey = NULL, ss.longitudeKey = NULL " +
+            "WHERE ss.latitudeKey IS NULL OR ss.longitudeKey IS NULL " +
+            "OR ss.latitudeKey <> CAST(FLOOR(ss.latitude * :scale + 0.5) AS Long) " +
+            "OR ss.longitudeKey <> CAST(FLOOR(ss.longitude * :scale + 0.5) AS Long)")
+    int clearStaleKeys(@Param("scale") double scale);
+
+    /**
+     * Sets the natural keys of the rows without them; run after {@link #clearStaleKeys} so that a new key
+     * cannot collide with a stale key still held by another row.
+     */
+    @Modifying
+    @Query("UPDATE SunriseSunset ss SET ss.latitudeKey = CAST(FLOOR(ss.latitude * :scale + 0.5) AS Long), " +
+            "ss.longitudeKey = CAST(FLOOR(ss.longitude * :scale + 0.5) AS Long) " +
+            "WHERE ss.latitudeKey IS NULL OR ss.longitudeKey IS NULL")
+    int fillMissingKeys(@Param("scale") double scale);
 }
\ No newline at end of file
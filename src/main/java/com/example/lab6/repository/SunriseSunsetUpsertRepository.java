@@ -0,0 +1,28 @@
+package com.example.lab6.repository;
+
+import com.example.lab6.model.SunriseSunset;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SunriseSunsetUpsertRepository {
+
+    /**
+     * Inserts each record, or updates the times of the row that already has its natural key. Location
+     * links are added to the row, never removed. The resulting row id is set on every record.
+     * Natural keys must already be applied and be distinct within one call, as PostgreSQL rejects a batch
+     * that updates the same row twice.
+     */
+    List<SunriseSunset> upsertAll(List<SunriseSunset> sunriseSunsets);
+
+    /**
+     * @return number of links that did not exist before
+     */
+    int addLocationLinks(Long sunriseSunsetId, Collection<Long> locationIds);
+
+    /**
+     * Moves the location links of {@code duplicateIds} to {@code survivorId}, gives the survivor the
+     * times of the newest duplicate and deletes the duplicates.
+     */
+    void mergeInto(Long survivorId, List<Long> duplicateIds);
+}
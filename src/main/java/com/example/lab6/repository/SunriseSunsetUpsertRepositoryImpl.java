@@ -0,0 +1,243 @@
+package com.example.lab6.repository;
+
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.query.NativeQuery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Upserts are sent as one JDBC batch per call. Ids come from the entity's pooled sequence generator,
+ * so a batch costs one sequence round trip per allocation block, the same as Hibernate's own inserts.
+ * PostgreSQL gets {@code ON CONFLICT ... DO UPDATE}; other databases, such as the embedded H2 of the
+ * load-test profile, get a standard {@code MERGE} followed by a key lookup.
+ */
+public class SunriseSunsetUpsertRepositoryImpl implements SunriseSunsetUpsertRepository {
+
+    private static final String TABLE = "sunrise_sunset";
+    private static final String LINK_TABLE = "sunrise_sunset_location";
+    private static final String[] QUERY_SPACES = {TABLE, LINK_TABLE};
+    private static final String SUNRISE_SUNSET_LOCATIONS = SunriseSunset.class.getName() + ".locations";
+    private static final String LOCATION_SUNRISE_SUNSETS = Location.class.getName() + ".sunriseSunsets";
+
+    private static final String UPSERT = """
+            INSERT INTO sunrise_sunset (id, latitude, longitude, latitude_key, longitude_key, date, sunrise, sunset)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (latitude_key, longitude_key, date)
+            DO UPDATE SET sunrise = EXCLUDED.sunrise, sunset = EXCLUDED.sunset, version = sunrise_sunset.version + 1""";
+
+    private static final String MERGE = """
+            MERGE INTO sunrise_sunset s
+            USING (SELECT CAST(? AS BIGINT) AS id, CAST(? AS DOUBLE PRECISION) AS latitude,
+                          CAST(? AS DOUBLE PRECISION) AS longitude, CAST(? AS BIGINT) AS latitude_key,
+                          CAST(? AS BIGINT) AS longitude_key, CAST(? AS DATE) AS date,
+                          CAST(? AS TIME) AS sunrise, CAST(? AS TIME) AS sunset) n
+            ON s.latitude_key = n.latitude_key AND s.longitude_key = n.longitude_key AND s.date = n.date
+            WHEN MATCHED THEN UPDATE SET sunrise = n.sunrise, sunset = n.sunset, version = s.version + 1
+            WHEN NOT MATCHED THEN INSERT (id, latitude, longitude, latitude_key, longitude_key, date, sunrise, sunset)
+            VALUES (n.id, n.latitude, n.longitude, n.latitude_key, n.longitude_key, n.date, n.sunrise, n.sunset)""";
+
+    private static final String FIND_ID = """
+            SELECT id FROM sunrise_sunset WHERE latitude_key = ? AND longitude_key = ? AND date = ?""";
+
+    private static final String LINK = """
+            INSERT INTO sunrise_sunset_location (sunrise_sunset_id, location_id)
+            SELECT ?, l.id FROM location l WHERE l.id = ?
+            ON CONFLICT DO NOTHING""";
+
+    private static final String LINK_ALL = """
+            INSERT INTO sunrise_sunset_location (sunrise_sunset_id, location_id)
+            SELECT :id, l.id FROM location l WHERE l.id IN (:locationIds)
+            ON CONFLICT DO NOTHING""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SunriseSunset> upsertAll(List<SunriseSunset> sunriseSunsets) {
+        if (sunriseSunsets.isEmpty()) {
+            return sunriseSunsets;
+        }
+        entityManager.flush();
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        List<Long> newIds = new ArrayList<>(sunriseSunsets.size());
+        for (int i = 0; i < sunriseSunsets.size(); i++) {
+            newIds.add(nextId(session));
+        }
+
+        session.doWork(connection -> {
+            if ("PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                upsert(connection, sunriseSunsets, newIds);
+            } else {
+                merge(connection, sunriseSunsets, newIds);
+            }
+
+            try (PreparedStatement link = connection.prepareStatement(LINK)) {
+                int links = 0;
+                for (SunriseSunset sunriseSunset : sunriseSunsets) {
+                    for (Location location : sunriseSunset.getLocations()) {
+                        link.setLong(1, sunriseSunset.getId());
+                        link.setLong(2, location.getId());
+                        link.addBatch();
+                        links++;
+                    }
+                }
+                if (links > 0) {
+                    link.executeBatch();
+                }
+            }
+        });
+        evictWritten(session, sunriseSunsets);
+        return sunriseSunsets;
+    }
+
+    /**
+     * Hibernate does not see JDBC work, so the second-level cache entries it touched are evicted here: the
+     * written records, their link collections and those of the linked locations, now and again once the
+     * transaction completes, and the cached query results over both tables through the timestamps cache.
+     * Other records keep their cache entries.
+     */
+    private static void evictWritten(SessionImplementor session, List<SunriseSunset> sunriseSunsets) {
+        Set<Long> ids = new HashSet<>();
+        Set<Long> locationIds = new HashSet<>();
+        for (SunriseSunset sunriseSunset : sunriseSunsets) {
+            ids.add(sunriseSunset.getId());
+            sunriseSunset.getLocations().forEach(location -> locationIds.add(location.getId()));
+        }
+        CacheImplementor cache = session.getFactory().getCache();
+        Runnable evict = () -> {
+            for (Long id : ids) {
+                cache.evictEntityData(SunriseSunset.class, id);
+                cache.evictCollectionData(SUNRISE_SUNSET_LOCATIONS, id);
+            }
+            for (Long locationId : locationIds) {
+                cache.evictCollectionData(LOCATION_SUNRISE_SUNSETS, locationId);
+            }
+        };
+        evict.run();
+        TimestampsCache timestamps = cache.getTimestampsCache();
+        timestamps.preInvalidate(QUERY_SPACES, session);
+        session.getActionQueue().registerProcess((success, completed) -> {
+            evict.run();
+            timestamps.invalidate(QUERY_SPACES, completed);
+        });
+    }
+
+    private static void upsert(Connection connection, List<SunriseSunset> sunriseSunsets, List<Long> newIds)
+            throws SQLException {
+        // On conflict the existing row's id is returned and the generated one is simply not used
+        try (PreparedStatement upsert = connection.prepareStatement(UPSERT, new String[]{"id"})) {
+            for (int i = 0; i < sunriseSunsets.size(); i++) {
+                bind(upsert, newIds.get(i), sunriseSunsets.get(i));
+                upsert.addBatch();
+            }
+            upsert.executeBatch();
+            try (ResultSet keys = upsert.getGeneratedKeys()) {
+                for (int i = 0; keys.next(); i++) {
+                    sunriseSunsets.get(i).setId(keys.getLong(1));
+                }
+            }
+        }
+    }
+
+    private static void merge(Connection connection, List<SunriseSunset> sunriseSunsets, List<Long> newIds)
+            throws SQLException {
+        try (PreparedStatement merge = connection.prepareStatement(MERGE)) {
+            for (int i = 0; i < sunriseSunsets.size(); i++) {
+                bind(merge, newIds.get(i), sunriseSunsets.get(i));
+                merge.addBatch();
+            }
+            merge.executeBatch();
+        }
+        try (PreparedStatement findId = connection.prepareStatement(FIND_ID)) {
+            for (SunriseSunset sunriseSunset : sunriseSunsets) {
+                findId.setLong(1, sunriseSunset.getLatitudeKey());
+                findId.setLong(2, sunriseSunset.getLongitudeKey());
+                findId.setObject(3, sunriseSunset.getDate());
+                try (ResultSet id = findId.executeQuery()) {
+                    id.next();
+                    sunriseSunset.setId(id.getLong(1));
+                }
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Long id, SunriseSunset sunriseSunset) throws SQLException {
+        statement.setLong(1, id);
+        statement.setDouble(2, sunriseSunset.getLatitude());
+        statement.setDouble(3, sunriseSunset.getLongitude());
+        statement.setLong(4, sunriseSunset.getLatitudeKey());
+        statement.setLong(5, sunriseSunset.getLongitudeKey());
+        statement.setObject(6, sunriseSunset.getDate());
+        statement.setObject(7, sunriseSunset.getSunrise());
+        statement.setObject(8, sunriseSunset.getSunset());
+    }
+
+    @Override
+    public int addLocationLinks(Long sunriseSunsetId, Collection<Long> locationIds) {
+        if (locationIds.isEmpty()) {
+            return 0;
+        }
+        return nativeUpdate(LINK_ALL, LINK_TABLE)
+                .setParameter("id", sunriseSunsetId)
+                .setParameter("locationIds", locationIds)
+                .executeUpdate();
+    }
+
+    @Override
+    public void mergeInto(Long survivorId, List<Long> duplicateIds) {
+        nativeUpdate("""
+                        UPDATE sunrise_sunset s SET sunrise = n.sunrise, sunset = n.sunset, version = s.version + 1
+                        FROM (SELECT sunrise, sunset FROM sunrise_sunset
+                              WHERE id IN (:ids) ORDER BY id DESC LIMIT 1) n
+                        WHERE s.id = :survivorId""", TABLE)
+                .setParameter("ids", duplicateIds)
+                .setParameter("survivorId", survivorId)
+                .executeUpdate();
+        nativeUpdate("""
+                        INSERT INTO sunrise_sunset_location (sunrise_sunset_id, location_id)
+                        SELECT :survivorId, location_id FROM sunrise_sunset_location WHERE sunrise_sunset_id IN (:ids)
+                        ON CONFLICT DO NOTHING""", LINK_TABLE)
+                .setParameter("ids", duplicateIds)
+                .setParameter("survivorId", survivorId)
+                .executeUpdate();
+        nativeUpdate("DELETE FROM sunrise_sunset_location WHERE sunrise_sunset_id IN (:ids)", LINK_TABLE)
+                .setParameter("ids", duplicateIds)
+                .executeUpdate();
+        nativeUpdate("DELETE FROM sunrise_sunset WHERE id IN (:ids)", TABLE)
+                .setParameter("ids", duplicateIds)
+                .executeUpdate();
+    }
+
+    // Declaring the written tables limits second-level cache invalidation to the regions that map them
+    private NativeQuery<?> nativeUpdate(String sql, String... tables) {
+        NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        for (String table : tables) {
+            query.addSynchronizedQuerySpace(table);
+        }
+        return query;
+    }
+
+    private static Long nextId(SharedSessionContractImplementor session) {
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(SunriseSunset.class)
+                .getGenerator();
+        return (Long) generator.generate(session, null, null, EventType.INSERT);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.lab6.service;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CachedBody;
+import com.example.lab6.cache.CacheTags;
+import com.example.lab6.dto.LocationView;
+import com.example.lab6.dto.SunriseSunsetView;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts only the cache entries that depend on a written record. Location entries embed their
+ * linked sunrise/sunset records and vice versa, so a write to one side also evicts the other. The read model
+ * caches use the same tags as the entity caches of their side. Each eviction also bumps the
+ * {@link ChangeStamps} of the collections it touched. Serialized response bodies embed records of both sides,
+ * so they are evicted by the tags of either side. Every region is evicted again after commit: an entry built
+ * from the old rows while the write was in flight must not outlive it.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    private final BoundedCache<List<Location>> locationCache;
+    private final BoundedCache<List<SunriseSunset>> sunriseSunsetCache;
+    private final BoundedCache<List<LocationView>> locationViewCache;
+    private final BoundedCache<List<SunriseSunsetView>> sunriseSunsetViewCache;
+    private final BoundedCache<CachedBody> responseBodyCache;
+    private final ChangeStamps changeStamps;
+
+    public void locationCreated(Collection<SunriseSunset> linked) {
+        evictForLocations(List.of(CacheTags.ALL_LOCATIONS), linked);
+    }
+
+    /**
+     * @param linked sunrise/sunset records linked to the location before and after the write
+     */
+    public void locationChanged(Long id, Collection<SunriseSunset> linked) {
+        locationsChanged(List.of(id), linked);
+    }
+
+    public void locationsChanged(Collection<Long> ids, Collection<SunriseSunset> linked) {
+        evictForLocations(ids.stream().map(CacheTags::location).toList(), linked);
+    }
+
+    /**
+     * For records written through the natural-key upsert, which may have created new rows or updated
+     * existing ones.
+     */
+    public void sunriseSunsetsUpserted(Collection<Long> ids, Collection<LocalDate> dates,
+                                       Collection<Location> linked) {
+        List<String> ownTags = new ArrayList<>();
+        ownTags.add(CacheTags.ALL_SUNRISE_SUNSETS);
+        ids.forEach(id -> ownTags.add(CacheTags.sunriseSunset(id)));
+        evictForSunriseSunset(ownTags, dates, linked);
+    }
+
+    /**
+     * Evicts every entry of both caches, for bulk rewrites such as deduplication.
+     */
+    public void all() {
+        locationCache.clear();
+        sunriseSunsetCache.clear();
+        locationViewCache.clear();
+        sunriseSunsetViewCache.clear();
+        responseBodyCache.clear();
+        AfterCommit.run(() -> {
+            locationCache.clear();
+            sunriseSunsetCache.clear();
+            locationViewCache.clear();
+            sunriseSunsetViewCache.clear();
+        });
+        changeStamps.changed(true, true);
+        AfterCommit.run(responseBodyCache::clear);
+        logger.debug("Cleared location and sunrise/sunset caches");
+    }
+
+    /**
+     * @param dates  dates of the record before and after the write
+     * @param linked locations linked to the record before and after the write
+     */
+    public void sunriseSunsetChanged(Long id, Collection<LocalDate> dates, Collection<Location> linked) {
+        evictForSunriseSunset(List.of(CacheTags.sunriseSunset(id)), dates, linked);
+    }
+
+    private void evictForLocations(List<String> ownTags, Collection<SunriseSunset> linked) {
+        List<String> locationTags = new ArrayList<>(ownTags);
+        List<String> sunriseSunsetTags = new ArrayList<>();
+        for (SunriseSunset sunriseSunset : linked) {
+            locationTags.add(CacheTags.date(sunriseSunset.getDate()));
+            sunriseSunsetTags.add(CacheTags.sunriseSunset(sunriseSunset.getId()));
+        }
+        evict(locationTags, sunriseSunsetTags);
+        logger.debug("Evicted location cache tags {} and sunrise/sunset cache tags {}",
+                locationTags, sunriseSunsetTags);
+    }
+
+    private void evictForSunriseSunset(List<String> ownTags, Collection<LocalDate> dates,
+                                       Collection<Location> linked) {
+        List<String> sunriseSunsetTags = new ArrayList<>(ownTags);
+        List<String> locationTags = new ArrayList<>();
+        for (LocalDate date : dates) {
+            sunriseSunsetTags.add(CacheTags.date(date));
+            locationTags.add(CacheTags.date(date));
+        }
+        for (Location location : linked) {
+            locationTags.add(CacheTags.location(location.getId()));
+        }
+        evict(locationTags, sunriseSunsetTags);
+        logger.debug("Evicted sunrise/sunset cache tags {} and location cache tags {}",
+                sunriseSunsetTags, locationTags);
+    }
+
+    /**
+     * Evicts now, so readers inside the writing transaction do not see the old entries, and again after commit,
+     * as a reader that ran while the write was in flight may have stored the old rows meanwhile. The after-commit
+     * eviction of the record caches is registered before the stamp bump and the response bodies after it: a body
+     * stored before the bump is evicted, one stored after it is dropped by the stamp check of its reader, and
+     * neither can be rebuilt from a stale record entry.
+     */
+    private void evict(List<String> locationTags, List<String> sunriseSunsetTags) {
+        List<String> all = new ArrayList<>(locationTags);
+        all.addAll(sunriseSunsetTags);
+        Runnable records = () -> {
+            locationCache.invalidateTags(locationTags);
+            locationViewCache.invalidateTags(locationTags);
+            sunriseSunsetCache.invalidateTags(sunriseSunsetTags);
+            sunriseSunsetViewCache.invalidateTags(sunriseSunsetTags);
+        };
+        records.run();
+        responseBodyCache.invalidateTags(all);
+        AfterCommit.run(records);
+        changeStamps.changed(!locationTags.isEmpty(), !sunriseSunsetTags.isEmpty());
+        AfterCommit.run(() -> responseBodyCache.invalidateTags(all));
+    }
+}
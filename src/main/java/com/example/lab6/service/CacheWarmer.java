@@ -0,0 +1,80 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.KeysetPage;
+import com.example.lab6.dto.LocationView;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Loads the hot read keys into the location and sunrise/sunset caches: the location pages, and the records of
+ * today and tomorrow (UTC, as {@code date=today} is resolved). Runs as an application runner, so it finishes
+ * before the application reports itself ready, and again for the date keys when the date rolls over.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final LocationService locationService;
+    private final SunriseSunsetService sunriseSunsetService;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.max-location-pages:10}")
+    private int maxLocationPages;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            int pages = warmLocationPages();
+            warmDates();
+            logger.info("Cache warm-up loaded {} location pages and today's and tomorrow's records in {} ms",
+                    pages, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            // A cold cache is slower, not broken, so startup goes on
+            logger.warn("Cache warm-up failed, starting with cold caches", e);
+        }
+    }
+
+    @Scheduled(cron = "${warmup.dates-cron:0 0 0 * * *}", zone = "UTC")
+    public void warmDates() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (LocalDate date : new LocalDate[]{today, today.plusDays(1)}) {
+            locationService.getLocationsByDate(date);
+            sunriseSunsetService.getByDate(date);
+        }
+        logger.debug("Warmed date caches for {} and {}", today, today.plusDays(1));
+    }
+
+    private int warmLocationPages() {
+        Long after = null;
+        int pages = 0;
+        while (pages < maxLocationPages) {
+            KeysetPage<LocationView> page = locationService.getPage(after, null, false);
+            pages++;
+            if (page.nextAfter() == null) {
+                break;
+            }
+            after = page.nextAfter();
+        }
+        return pages;
+    }
+}
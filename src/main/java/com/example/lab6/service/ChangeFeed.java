@@ -0,0 +1,210 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.ChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Committed writes as a stream of {@link ChangeEvent}s. The last {@code change-feed.buffer-size} events are kept
+ * in a ring buffer, so a subscriber that reconnects with the id of the last event it saw gets the ones it missed.
+ * Each subscriber has its own queue of {@code change-feed.subscriber-queue-size} events; publishing never waits,
+ * and a subscriber whose queue is full is dropped and has to resume from the buffer.
+ */
+@Component
+public class ChangeFeed {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final ChangeEvent[] buffer;
+    private final int queueSize;
+    private final int maxSubscribers;
+    private final Lock lock = new ReentrantLock();
+    private final Set<Subscription> subscriptions = new CopyOnWriteArraySet<>();
+    private long nextSequence = 1;
+
+    public ChangeFeed(@Value("${change-feed.buffer-size:1024}") int bufferSize,
+                      @Value("${change-feed.subscriber-queue-size:256}") int queueSize,
+                      @Value("${change-feed.max-subscribers:1000}") int maxSubscribers) {
+        if (bufferSize < 1 || queueSize < 1) {
+            throw new IllegalArgumentException("buffer-size and subscriber-queue-size must be at least 1");
+        }
+        this.buffer = new ChangeEvent[bufferSize];
+        this.queueSize = queueSize;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * Publishes the change once the current transaction commits, or immediately outside a transaction.
+     */
+    public void publish(String entity, ChangeEvent.Type type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> changed = List.copyOf(ids);
+        AfterCommit.run(() -> append(entity, type, changed));
+    }
+
+    /**
+     * @param lastEventId id of the last event the client received, or {@code null} for new events only
+     * @param entity      {@link ChangeEvent#LOCATION} or {@link ChangeEvent#SUNRISE_SUNSET}, or {@code null}
+     *                    for both
+     * @return empty when {@code change-feed.max-subscribers} are already connected
+     */
+    public Optional<Subscription> subscribe(String lastEventId, String entity) {
+        if (entity != null && !ChangeEvent.LOCATION.equals(entity) && !ChangeEvent.SUNRISE_SUNSET.equals(entity)) {
+            throw new IllegalArgumentException("entity must be '" + ChangeEvent.LOCATION + "' or '"
+                    + ChangeEvent.SUNRISE_SUNSET + "'");
+        }
+        lock.lock();
+        try {
+            if (subscriptions.size() >= maxSubscribers) {
+                return Optional.empty();
+            }
+            Subscription subscription = new Subscription(entity, eventId(nextSequence - 1));
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                subscription.reset = !backlog(lastEventId.trim(), subscription);
+            }
+            subscriptions.add(subscription);
+            return Optional.of(subscription);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int subscribers() {
+        return subscriptions.size();
+    }
+
+    private void append(String entity, ChangeEvent.Type type, List<Long> ids) {
+        lock.lock();
+        try {
+            long sequence = nextSequence++;
+            ChangeEvent event = new ChangeEvent(eventId(sequence), entity, type, ids, Instant.now());
+            buffer[(int) (sequence % buffer.length)] = event;
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues the buffered events after {@code lastEventId}; false when some of them are no longer buffered
+     * or the id is from an earlier run.
+     */
+    private boolean backlog(String lastEventId, Subscription subscription) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !bootId.equals(lastEventId.substring(0, separator))) {
+            return false;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long oldest = Math.max(1, nextSequence - buffer.length);
+        if (last < oldest - 1 || last >= nextSequence) {
+            return false;
+        }
+        for (long sequence = last + 1; sequence < nextSequence; sequence++) {
+            ChangeEvent event = buffer[(int) (sequence % buffer.length)];
+            if (subscription.matches(event)) {
+                subscription.backlog.add(event);
+            }
+        }
+        return true;
+    }
+
+    private String eventId(long sequence) {
+        return bootId + "-" + sequence;
+    }
+
+    public final class Subscription implements AutoCloseable {
+
+        private final String entity;
+        private final String startId;
+        private final List<ChangeEvent> backlog = new ArrayList<>();
+        private final BlockingQueue<ChangeEvent> queue = new ArrayBlockingQueue<>(queueSize);
+        private volatile boolean dropped;
+        private volatile boolean closed;
+        private boolean reset;
+
+        private Subscription(String entity, String startId) {
+            this.entity = entity;
+            this.startId = startId;
+        }
+
+        /**
+         * True when the events since the client's last event id are no longer buffered, so the client has to
+         * reload the collections; {@link #backlog()} is empty then.
+         */
+        public boolean reset() {
+            return reset;
+        }
+
+        /**
+         * Id of the newest event when the subscription started; sent with a reset, so the client resumes from
+         * there after reloading.
+         */
+        public String startId() {
+            return startId;
+        }
+
+        /**
+         * Missed events to send before the ones from {@link #next}.
+         */
+        public List<ChangeEvent> backlog() {
+            return backlog;
+        }
+
+        /**
+         * The next event, or {@code null} when none arrived within {@code timeout}.
+         */
+        public ChangeEvent next(Duration timeout) throws InterruptedException {
+            return queue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Whether the subscriber fell {@code change-feed.subscriber-queue-size} events behind and was dropped.
+         */
+        public boolean dropped() {
+            return dropped;
+        }
+
+        public boolean isOpen() {
+            return !dropped && !closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+
+        private boolean matches(ChangeEvent event) {
+            return entity == null || entity.equals(event.entity());
+        }
+
+        private void offer(ChangeEvent event) {
+            if (matches(event) && !queue.offer(event)) {
+                dropped = true;
+                subscriptions.remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.lab6.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-collection change counters for conditional GETs. {@link CacheInvalidator} bumps them after every write
+ * commits, with the same cross-side rules it uses for cache eviction, so a response tagged with the stamps read
+ * before loading it is stale as soon as any write it could depend on has committed. The boot id keeps tags from
+ * a previous run from matching after a restart resets the counters.
+ */
+@Component
+public class ChangeStamps {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong locations = new AtomicLong();
+    private final AtomicLong sunriseSunsets = new AtomicLong();
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public void changed(boolean locationsChanged, boolean sunriseSunsetsChanged) {
+        if (!locationsChanged && !sunriseSunsetsChanged) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (locationsChanged) {
+                locations.incrementAndGet();
+            }
+            if (sunriseSunsetsChanged) {
+                sunriseSunsets.incrementAndGet();
+            }
+            lastModified = System.currentTimeMillis();
+        });
+    }
+
+    /**
+     * Identifies the current state of both collections; list and by-date responses embed records of
+     * both sides.
+     */
+    public String collections() {
+        return bootId + "-" + locations.get() + "-" + sunriseSunsets.get();
+    }
+
+    public String locations() {
+        return bootId + "-" + locations.get();
+    }
+
+    public String sunriseSunsets() {
+        return bootId + "-" + sunriseSunsets.get();
+    }
+
+    /**
+     * Epoch millis of the last committed write to either collection, or of startup.
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+}
@@ -1,19 +1,36 @@
 package com.example.lab6.service;
 
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CacheTags;
+import com.example.lab6.dto.ChangeEvent;
+import com.example.lab6.dto.KeysetPage;
+import com.example.lab6.dto.LocationBulkResult;
+import com.example.lab6.dto.LocationView;
+import com.example.lab6.dto.SunriseSunsetView;
 import com.example.lab6.model.Location;
 import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.IdLink;
 import com.example.lab6.repository.LocationRepository;
 import com.example.lab6.repository.SunriseSunsetRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -23,36 +40,90 @@ public class LocationService {
 
     private final LocationRepository repository;
     private final SunriseSunsetRepository sunriseSunsetRepository;
-    private final Map<String, List<Location>> locationCache;
+    private final BoundedCache<List<Location>> locationCache;
+    private final BoundedCache<List<LocationView>> locationViewCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final ChangeFeed changeFeed;
+    private final TransactionTemplate transactionTemplate;
+    private final Pages pages;
 
+    @Value("${location.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    /**
+     * Locations with id greater than {@code after}, in id order, read as {@link LocationView}s without loading
+     * entities. Linked sunrise/sunset records are listed by id, and also rendered when {@code expand} is set.
+     */
     @Transactional(readOnly = true)
-    public List<Location> getAll() {
+    public KeysetPage<LocationView> getPage(Long after, Integer limit, boolean expand) {
         RequestCounter.increment(); // Увеличиваем счётчик
-        String cacheKey = "all_locations";
-        if (locationCache.containsKey(cacheKey)) {
+        long cursor = after != null ? after : 0;
+        int pageLimit = pages.resolveLimit(limit);
+        String cacheKey = "locations_page_" + cursor + "_" + pageLimit + (expand ? "_expanded" : "");
+        List<LocationView> cached = locationViewCache.get(cacheKey);
+        if (cached != null) {
             logger.debug("Returning cached locations for key: {}", cacheKey);
-            return locationCache.get(cacheKey);
+            return KeysetPage.of(cached, pageLimit, LocationView::id);
         }
-        logger.debug("Cache miss, querying database for all locations");
-        List<Location> locations = repository.findAll();
-        locationCache.put(cacheKey, locations);
-        return locations;
+        logger.debug("Cache miss, querying database for locations after ID: {}", cursor);
+        List<LocationView> locations = withLinks(repository.findViewsAfter(cursor, PageRequest.of(0, pageLimit)),
+                expand);
+        // New rows get higher ids, so only a page that is not full can gain rows on insert
+        String[] extraTags = locations.size() < pageLimit ? new String[]{CacheTags.ALL_LOCATIONS} : new String[0];
+        locationViewCache.put(cacheKey, locations, CacheTags.forLocationViews(locations, extraTags));
+        return KeysetPage.of(locations, pageLimit, LocationView::id);
+    }
+
+    private List<LocationView> withLinks(List<LocationView> locations, boolean expand) {
+        if (locations.isEmpty()) {
+            return locations;
+        }
+        Map<Long, List<Long>> links = IdLink.groupByOwner(
+                repository.findSunriseSunsetLinks(locations.stream().map(LocationView::id).toList()));
+        Map<Long, SunriseSunsetView> linked = new HashMap<>();
+        if (expand) {
+            Set<Long> linkedIds = new HashSet<>();
+            links.values().forEach(linkedIds::addAll);
+            if (!linkedIds.isEmpty()) {
+                sunriseSunsetRepository.findViewsByIdIn(linkedIds).forEach(view -> linked.put(view.id(), view));
+            }
+        }
+        List<LocationView> views = new ArrayList<>(locations.size());
+        for (LocationView location : locations) {
+            List<Long> ids = links.getOrDefault(location.id(), List.of());
+            views.add(location.withLinks(ids, expand ? present(ids, linked) : null));
+        }
+        return views;
+    }
+
+    // A linked record deleted between the two queries is left out
+    static <V> List<V> present(List<Long> ids, Map<Long, V> byId) {
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
     @Transactional(readOnly = true)
     public Optional<Location> getById(Long id) {
         RequestCounter.increment(); // Увеличиваем счётчик
         String cacheKey = "location_" + id;
-        if (locationCache.containsKey(cacheKey)) {
+        List<Location> cached = locationCache.get(cacheKey);
+        if (cached != null) {
             logger.debug("Returning cached location for key: {}", cacheKey);
-            return Optional.ofNullable(locationCache.get(cacheKey).get(0));
+            return Optional.ofNullable(cached.get(0));
         }
         logger.debug("Cache miss, querying database for location ID: {}", id);
         Optional<Location> location = repository.findById(id);
-        location.ifPresent(l -> locationCache.put(cacheKey, List.of(l)));
+        location.ifPresent(l -> locationCache.put(cacheKey, List.of(l), List.of(CacheTags.location(id))));
         return location;
     }
 
+    /**
+     * Version of the location without loading it, for conditional GETs.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> getVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
     @Transactional
     public Location create(Location location, List<Long> sunriseSunsetIds) {
         RequestCounter.increment(); // Увеличиваем счётчик
@@ -61,8 +132,9 @@ public class LocationService {
             location.getSunriseSunsets().addAll(sunriseSunsets);
         }
         Location saved = repository.save(location);
-        locationCache.clear();
-        logger.debug("Cache cleared after creating location");
+        cacheInvalidator.locationCreated(saved.getSunriseSunsets());
+        changeFeed.publish(ChangeEvent.LOCATION, ChangeEvent.Type.CREATED, List.of(saved.getId()));
+        logger.debug("Cache invalidated after creating location ID: {}", saved.getId());
         return saved;
     }
 
@@ -70,6 +142,7 @@ public class LocationService {
     public Optional<Location> update(Long id, Location updatedData, List<Long> sunriseSunsetIds) {
         RequestCounter.increment(); // Увеличиваем счётчик
         return repository.findById(id).map(location -> {
+            List<SunriseSunset> affected = new ArrayList<>(location.getSunriseSunsets());
             location.setName(updatedData.getName());
             location.setCountry(updatedData.getCountry());
 
@@ -79,8 +152,10 @@ public class LocationService {
                 location.getSunriseSunsets().addAll(sunriseSunsets);
             }
             Location saved = repository.save(location);
-            locationCache.clear();
-            logger.debug("Cache cleared after updating location ID: {}", id);
+            affected.addAll(saved.getSunriseSunsets());
+            cacheInvalidator.locationChanged(id, affected);
+            changeFeed.publish(ChangeEvent.LOCATION, ChangeEvent.Type.UPDATED, List.of(id));
+            logger.debug("Cache invalidated after updating location ID: {}", id);
             return saved;
         });
     }
@@ -89,56 +164,163 @@ public class LocationService {
     public boolean delete(Long id) {
         RequestCounter.increment(); // Увеличиваем счётчик
         return repository.findById(id).map(location -> {
+            List<SunriseSunset> affected = new ArrayList<>(location.getSunriseSunsets());
             repository.delete(location);
-            locationCache.clear();
-            logger.debug("Cache cleared after deleting location ID: {}", id);
+            cacheInvalidator.locationChanged(id, affected);
+            changeFeed.publish(ChangeEvent.LOCATION, ChangeEvent.Type.DELETED, List.of(id));
+            logger.debug("Cache invalidated after deleting location ID: {}", id);
             return true;
         }).orElse(false);
     }
 
     @Transactional(readOnly = true)
-    public List<Location> getLocationsByDate(String date) {
+    public List<Location> getLocationsByDate(LocalDate date) {
         RequestCounter.increment(); // Увеличиваем счётчик
         String cacheKey = "locations_date_" + date;
 
-        if (locationCache.containsKey(cacheKey)) {
+        List<Location> cached = locationCache.get(cacheKey);
+        if (cached != null) {
             logger.debug("Returning cached locations for key: {}", cacheKey);
-            return locationCache.get(cacheKey);
+            return cached;
         }
 
         logger.debug("Cache miss, querying database for locations by date: {}", date);
         List<Location> locations = repository.findLocationsBySunriseSunsetDate(date);
-        locationCache.put(cacheKey, locations);
+        locationCache.put(cacheKey, locations, CacheTags.forLocations(locations, CacheTags.date(date)));
         return locations;
     }
 
-    @Transactional
-    public List<Location> bulkCreateOrUpdate(List<Location> locations, List<Long> sunriseSunsetIds) {
+    @Transactional(readOnly = true)
+    public List<Location> getLocationsByDateRange(LocalDate from, LocalDate to) {
+        RequestCounter.increment(); // Увеличиваем счётчик
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        logger.debug("Querying database for locations by date range: {} - {}", from, to);
+        return repository.findLocationsBySunriseSunsetDateBetween(from, to);
+    }
+
+    /**
+     * Creates the locations without an id and updates the ones with an id, {@code bulkChunkSize} items per
+     * transaction. Existing rows of a chunk are read with one query and inserts and updates are flushed as
+     * JDBC batches. A chunk that fails to commit is reported as failed without stopping the later chunks.
+     */
+    public List<LocationBulkResult> bulkCreateOrUpdate(List<Location> locations, List<Long> sunriseSunsetIds) {
         RequestCounter.increment(); // Увеличиваем счётчик
         List<SunriseSunset> sunriseSunsets = sunriseSunsetIds != null && !sunriseSunsetIds.isEmpty()
                 ? sunriseSunsetRepository.findAllById(sunriseSunsetIds)
                 : List.of();
+        List<LocationBulkResult> results = new ArrayList<>(locations.size());
+        for (int from = 0; from < locations.size(); from += bulkChunkSize) {
+            int to = Math.min(from + bulkChunkSize, locations.size());
+            results.addAll(writeChunk(locations, from, to, sunriseSunsets));
+        }
+        logger.info("Bulk create/update of {} locations finished", locations.size());
+        return results;
+    }
+
+    private record BulkChunk(List<LocationBulkResult> results, List<Long> updatedIds, int created,
+                             List<SunriseSunset> affected) {
+    }
+
+    private List<LocationBulkResult> writeChunk(List<Location> locations, int from, int to,
+                                                List<SunriseSunset> sunriseSunsets) {
+        BulkChunk chunk;
+        try {
+            chunk = transactionTemplate.execute(status -> applyChunk(locations, from, to, sunriseSunsets));
+        } catch (RuntimeException e) {
+            logger.warn("Bulk location chunk {}-{} rolled back: {}", from, to - 1, e.getMessage());
+            List<LocationBulkResult> failed = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                failed.add(LocationBulkResult.failed(i, "Chunk rolled back: " + e.getMessage()));
+            }
+            return failed;
+        }
+        if (!chunk.updatedIds().isEmpty()) {
+            cacheInvalidator.locationsChanged(chunk.updatedIds(), chunk.affected());
+        }
+        if (chunk.created() > 0) {
+            cacheInvalidator.locationCreated(chunk.affected());
+        }
+        changeFeed.publish(ChangeEvent.LOCATION, ChangeEvent.Type.UPDATED, chunk.updatedIds());
+        changeFeed.publish(ChangeEvent.LOCATION, ChangeEvent.Type.CREATED, chunk.results().stream()
+                .filter(result -> result.status() == LocationBulkResult.Status.CREATED)
+                .map(LocationBulkResult::id)
+                .toList());
+        logger.debug("Cache invalidated after bulk chunk {}-{}", from, to - 1);
+        return chunk.results();
+    }
+
+    private BulkChunk applyChunk(List<Location> locations, int from, int to, List<SunriseSunset> sunriseSunsets) {
+        Set<Long> ids = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            Long id = locations.get(i).getId();
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        Map<Long, Location> existing = new HashMap<>();
+        if (!ids.isEmpty()) {
+            repository.findAllByIdInOrderById(ids).forEach(location -> existing.put(location.getId(), location));
+        }
 
-        List<Location> processedLocations = locations.stream()
-                .map(location -> {
-                    Optional<Location> existing = repository.findById(location.getId() != null ? location.getId() : 0L);
-                    if (existing.isPresent()) {
-                        Location toUpdate = existing.get();
-                        toUpdate.setName(location.getName());
-                        toUpdate.setCountry(location.getCountry());
-                        toUpdate.getSunriseSunsets().clear();
-                        toUpdate.getSunriseSunsets().addAll(sunriseSunsets);
-                        return toUpdate;
-                    } else {
-                        location.getSunriseSunsets().addAll(sunriseSunsets);
-                        return location;
-                    }
-                })
-                .collect(Collectors.toList());
-
-        List<Location> savedLocations = repository.saveAll(processedLocations);
-        locationCache.clear();
-        logger.debug("Cache cleared after bulk create/update of {} locations", savedLocations.size());
-        return savedLocations;
+        LocationBulkResult[] results = new LocationBulkResult[to - from];
+        List<SunriseSunset> affected = new ArrayList<>(sunriseSunsets);
+        List<Long> updatedIds = new ArrayList<>();
+        List<Location> toInsert = new ArrayList<>();
+        List<Integer> insertIndexes = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Location item = locations.get(i);
+            String invalid = validate(item);
+            if (invalid != null) {
+                results[i - from] = LocationBulkResult.failed(i, invalid);
+            } else if (item.getId() == null) {
+                Location created = new Location();
+                created.setName(item.getName());
+                created.setCountry(item.getCountry());
+                toInsert.add(created);
+                insertIndexes.add(i);
+            } else {
+                Location target = existing.get(item.getId());
+                if (target == null) {
+                    results[i - from] = LocationBulkResult.failed(i, "Location not found: " + item.getId());
+                    continue;
+                }
+                affected.addAll(target.getSunriseSunsets());
+                target.setName(item.getName());
+                target.setCountry(item.getCountry());
+                updatedIds.add(target.getId());
+                results[i - from] = LocationBulkResult.updated(i, target.getId());
+            }
+        }
+
+        List<Location> saved = repository.saveAll(toInsert);
+        Set<Long> writtenIds = new LinkedHashSet<>(updatedIds);
+        for (int k = 0; k < saved.size(); k++) {
+            int index = insertIndexes.get(k);
+            results[index - from] = LocationBulkResult.created(index, saved.get(k).getId());
+            writtenIds.add(saved.get(k).getId());
+        }
+        if (!sunriseSunsets.isEmpty() && !writtenIds.isEmpty()) {
+            // Links are owned by SunriseSunset, so they are inserted directly once the new rows are flushed
+            repository.flush();
+            for (SunriseSunset sunriseSunset : sunriseSunsets) {
+                sunriseSunsetRepository.addLocationLinks(sunriseSunset.getId(), writtenIds);
+            }
+        }
+        return new BulkChunk(List.of(results), updatedIds, saved.size(), affected);
+    }
+
+    private static String validate(Location location) {
+        if (location == null) {
+            return "Location is missing";
+        }
+        if (location.getName() == null || location.getName().isBlank()) {
+            return "Name is mandatory";
+        }
+        if (location.getCountry() == null || location.getCountry().isBlank()) {
+            return "Country is mandatory";
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.KeysetPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Page size settings shared by the listings. Controllers and services resolve the requested limit here, so
+ * the response cache and the view cache key the same page the same way.
+ */
+@Component
+public class Pages {
+
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public Pages(@Value("${pagination.default-limit:100}") int defaultLimit,
+                 @Value("${pagination.max-limit:500}") int maxLimit) {
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * The requested limit, or the default when none was given, capped at {@code pagination.max-limit}.
+     */
+    public int resolveLimit(Integer requested) {
+        return KeysetPage.resolveLimit(requested, defaultLimit, maxLimit);
+    }
+
+    public int maxLimit() {
+        return maxLimit;
+    }
+}
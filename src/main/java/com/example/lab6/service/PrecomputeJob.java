@@ -0,0 +1,127 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.PrecomputeJobStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mutable progress of one precomputation job; read by status requests while the worker updates it.
+ */
+class PrecomputeJob {
+
+    enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private static final int MAX_ERRORS = 20;
+
+    private final String id;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int locations;
+    private final long totalRows;
+    private final Instant submittedAt = Instant.now();
+
+    private final LongAdder processedRows = new LongAdder();
+    private final LongAdder savedRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final LongAdder chunksWritten = new LongAdder();
+    private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger errorCount = new AtomicInteger();
+
+    private volatile State state = State.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Future<?> future;
+
+    PrecomputeJob(String id, LocalDate from, LocalDate to, int locations, long totalRows) {
+        this.id = id;
+        this.from = from;
+        this.to = to;
+        this.locations = locations;
+        this.totalRows = totalRows;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED || state == State.CANCELLED;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        state = State.RUNNING;
+    }
+
+    void finish(State finalState) {
+        finishedAt = Instant.now();
+        state = finalState;
+    }
+
+    void fail(Throwable error) {
+        addError(error.getMessage());
+        finish(State.FAILED);
+    }
+
+    /**
+     * Stops a queued job immediately; a running job stops before its next chunk.
+     */
+    void cancel() {
+        cancelRequested = true;
+        if (state == State.QUEUED && future != null && future.cancel(false)) {
+            finish(State.CANCELLED);
+        }
+    }
+
+    void recordChunk(int processed, int saved, int failed) {
+        processedRows.add(processed);
+        savedRows.add(saved);
+        failedRows.add(failed);
+        chunksWritten.increment();
+    }
+
+    void addError(String error) {
+        if (errorCount.getAndIncrement() < MAX_ERRORS) {
+            errors.add(error);
+        }
+    }
+
+    PrecomputeJobStatus snapshot() {
+        Instant started = startedAt;
+        double rowsPerSecond = 0;
+        if (started != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            long millis = Math.max(1, Duration.between(started, end).toMillis());
+            rowsPerSecond = savedRows.sum() * 1000.0 / millis;
+        }
+        return new PrecomputeJobStatus(id, state.name(), from, to, locations, totalRows,
+                processedRows.sum(), savedRows.sum(), failedRows.sum(), chunksWritten.sum(), rowsPerSecond,
+                submittedAt, started, finishedAt, List.copyOf(errors));
+    }
+}
@@ -1,18 +1,24 @@
 package com.example.lab6.service;
 
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Total number of service calls. Backed by a {@link LongAdder}, so concurrent increments do not contend;
+ * the per-method breakdown lives in {@link com.example.lab6.metrics.RequestMetrics}.
+ */
 public class RequestCounter {
 
-    private static long requestCount = 0;
+    private static final LongAdder requestCount = new LongAdder();
 
-    public static synchronized void increment() {
-        requestCount++;
+    public static void increment() {
+        requestCount.increment();
     }
 
-    public static synchronized long getRequestCount() {
-        return requestCount;
+    public static long getRequestCount() {
+        return requestCount.sum();
     }
 
-    public static synchronized void reset() {
-        requestCount = 0;
+    public static void reset() {
+        requestCount.reset();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.example.lab6.service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spaces calls evenly at a fixed rate: each caller reserves the next free slot and waits for it.
+ * A rate of zero or less disables pacing.
+ */
+final class RequestPacer {
+
+    private final long intervalNanos;
+    private final Lock lock = new ReentrantLock();
+    private long nextSlot = System.nanoTime();
+
+    RequestPacer(double perSecond) {
+        this.intervalNanos = perSecond > 0 ? (long) (1_000_000_000L / perSecond) : 0;
+    }
+
+    void acquire() {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long slot;
+        lock.lock();
+        try {
+            slot = Math.max(System.nanoTime(), nextSlot);
+            nextSlot = slot + intervalNanos;
+        } finally {
+            lock.unlock();
+        }
+        for (long wait = slot - System.nanoTime(); wait > 0; wait = slot - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
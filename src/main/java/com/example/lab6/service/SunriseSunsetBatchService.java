@@ -0,0 +1,207 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.BatchFetchRequest;
+import com.example.lab6.dto.BatchFetchResult;
+import com.example.lab6.dto.ChangeEvent;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.LocationRepository;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Resolves many coordinate/date tuples in one request: provider calls run concurrently up to a
+ * configured limit, and all successful results are saved in a single transaction. Items that share a natural
+ * key are fetched and written once and all report the resulting row.
+ */
+@Service
+@RequiredArgsConstructor
+public class SunriseSunsetBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetBatchService.class);
+
+    private final SunriseSunsetRepository repository;
+    private final LocationRepository locationRepository;
+    private final SunriseSunsetFetcher sunriseSunsetFetcher;
+    private final CacheInvalidator cacheInvalidator;
+    private final ChangeFeed changeFeed;
+    private final SunriseSunsetSpatialIndex spatialIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final SunriseSunsetKeys sunriseSunsetKeys;
+
+    @Value("${sunrise-sunset.batch.parallelism:8}")
+    private int parallelism;
+
+    @Value("${sunrise-sunset.batch.max-items:1000}")
+    private int maxItems;
+
+    public List<BatchFetchResult> fetchBatch(List<BatchFetchRequest> requests) {
+        RequestCounter.increment(); // Увеличиваем счётчик
+        if (requests.size() > maxItems) {
+            throw new IllegalArgumentException("Batch size " + requests.size() + " exceeds the limit of " + maxItems);
+        }
+
+        // Items sharing a natural key are fetched and written once, by the first of them
+        List<Integer> owners = new ArrayList<>(requests.size());
+        Map<SunriseSunsetKeys.NaturalKey, Integer> ownerByKey = new HashMap<>();
+        List<CompletableFuture<Map<String, Object>>> fetches = new ArrayList<>(requests.size());
+        Semaphore permits = new Semaphore(parallelism);
+        for (int i = 0; i < requests.size(); i++) {
+            BatchFetchRequest request = requests.get(i);
+            if (validate(request) != null) {
+                owners.add(null);
+                fetches.add(null);
+                continue;
+            }
+            Integer owner = ownerByKey.putIfAbsent(sunriseSunsetKeys.keyOf(request.latitude(), request.longitude(),
+                    SunriseSunsetService.parseDate(request.date())), i);
+            owners.add(owner != null ? owner : i);
+            if (owner != null) {
+                fetches.add(null);
+                continue;
+            }
+            permits.acquireUninterruptibly();
+            CompletableFuture<Map<String, Object>> fetch =
+                    sunriseSunsetFetcher.fetchAsync(request.latitude(), request.longitude(), request.date());
+            fetch.whenComplete((response, error) -> permits.release());
+            fetches.add(fetch);
+        }
+        CompletableFuture.allOf(fetches.stream().filter(Objects::nonNull).toArray(CompletableFuture[]::new))
+                .handle((ignored, error) -> null)
+                .join();
+
+        List<BatchFetchResult> results = transactionTemplate.execute(status -> saveAll(requests, owners, fetches));
+        logger.info("Batch fetch of {} items finished", requests.size());
+        return results;
+    }
+
+    private List<BatchFetchResult> saveAll(List<BatchFetchRequest> requests, List<Integer> owners,
+                                           List<CompletableFuture<Map<String, Object>>> fetches) {
+        Map<Long, Location> locations = loadLocations(requests);
+
+        BatchFetchResult[] results = new BatchFetchResult[requests.size()];
+        Map<Integer, SunriseSunset> toSave = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BatchFetchRequest request = requests.get(i);
+            String invalid = validate(request);
+            if (invalid != null) {
+                results[i] = BatchFetchResult.invalid(i, invalid);
+                continue;
+            }
+            if (owners.get(i) != i) {
+                continue;
+            }
+            Map<String, Object> response;
+            try {
+                response = fetches.get(i).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                results[i] = BatchFetchResult.failed(i, cause.getMessage());
+                continue;
+            }
+            if (response == null || !"OK".equals(response.get("status"))) {
+                results[i] = BatchFetchResult.failed(i, "Provider returned status "
+                        + (response != null ? response.get("status") : null));
+                continue;
+            }
+            toSave.put(i, sunriseSunsetKeys.applyKey(SunriseSunsetService.toEntity(
+                    response, request.latitude(), request.longitude(), request.date())));
+        }
+
+        // Every item of a key links its locations to the one row written for it
+        Map<Long, Location> linked = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            SunriseSunset sunriseSunset = owners.get(i) != null ? toSave.get(owners.get(i)) : null;
+            if (sunriseSunset == null || requests.get(i).locationIds() == null) {
+                continue;
+            }
+            for (Long locationId : requests.get(i).locationIds()) {
+                Location location = locations.get(locationId);
+                if (location != null) {
+                    sunriseSunset.getLocations().add(location);
+                    linked.put(locationId, location);
+                }
+            }
+        }
+
+        List<SunriseSunset> saved = repository.upsertAll(new ArrayList<>(toSave.values()));
+        Set<Long> ids = new LinkedHashSet<>();
+        Set<LocalDate> dates = new LinkedHashSet<>();
+        for (SunriseSunset sunriseSunset : saved) {
+            ids.add(sunriseSunset.getId());
+            dates.add(sunriseSunset.getDate());
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            Integer owner = owners.get(i);
+            if (owner == null) {
+                continue;
+            }
+            SunriseSunset sunriseSunset = toSave.get(owner);
+            if (sunriseSunset != null) {
+                results[i] = BatchFetchResult.ok(i, sunriseSunset.getId(),
+                        sunriseSunset.getSunrise(), sunriseSunset.getSunset());
+            } else if (owner != i) {
+                results[i] = BatchFetchResult.failed(i, results[owner].error());
+            }
+        }
+        if (!saved.isEmpty()) {
+            cacheInvalidator.sunriseSunsetsUpserted(ids, dates, linked.values());
+            changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.UPSERTED, ids);
+            spatialIndex.index(saved);
+        }
+        return List.of(results);
+    }
+
+    private Map<Long, Location> loadLocations(List<BatchFetchRequest> requests) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (BatchFetchRequest request : requests) {
+            if (request.locationIds() != null) {
+                ids.addAll(request.locationIds());
+            }
+        }
+        Map<Long, Location> locations = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Location location : locationRepository.findAllById(ids)) {
+                locations.put(location.getId(), location);
+            }
+        }
+        return locations;
+    }
+
+    static String validate(BatchFetchRequest request) {
+        if (request == null) {
+            return "Item is empty";
+        }
+        if (request.latitude() == null || request.latitude() < -90 || request.latitude() > 90) {
+            return "Latitude must be between -90 and 90";
+        }
+        if (request.longitude() == null || request.longitude() < -180 || request.longitude() > 180) {
+            return "Longitude must be between -180 and 180";
+        }
+        try {
+            LocalDate.parse(SunriseSunsetFetcher.normalizeDate(request.date()));
+        } catch (DateTimeParseException e) {
+            return "Date must be in yyyy-MM-dd format";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.ChangeEvent;
+import com.example.lab6.dto.DeduplicationReport;
+import com.example.lab6.repository.SunriseSunsetKeyView;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Merges sunrise/sunset rows that share a natural key, keeping the oldest row with the newest times and
+ * the union of location links, and fills in natural keys for rows written before they existed or under
+ * a different {@code sunrise-sunset.key-precision}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SunriseSunsetDeduplicationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetDeduplicationService.class);
+
+    private final SunriseSunsetRepository repository;
+    private final SunriseSunsetKeys sunriseSunsetKeys;
+    private final CacheInvalidator cacheInvalidator;
+    private final ChangeFeed changeFeed;
+    private final SunriseSunsetSpatialIndex spatialIndex;
+
+    @Value("${sunrise-sunset.dedup-on-startup:false}")
+    private boolean dedupOnStartup;
+
+    private record NaturalKey(long latitudeKey, long longitudeKey, LocalDate date) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void deduplicateOnStartup() {
+        if (dedupOnStartup) {
+            deduplicate();
+        }
+    }
+
+    @Transactional
+    public DeduplicationReport deduplicate() {
+        RequestCounter.increment(); // Увеличиваем счётчик
+        List<SunriseSunsetKeyView> rows = repository.findAllKeyViews();
+        Map<NaturalKey, List<SunriseSunsetKeyView>> groups = new LinkedHashMap<>();
+        for (SunriseSunsetKeyView row : rows) {
+            NaturalKey key = new NaturalKey(sunriseSunsetKeys.quantize(row.latitude()),
+                    sunriseSunsetKeys.quantize(row.longitude()), row.date());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+        }
+
+        int mergedGroups = 0;
+        int removedRows = 0;
+        List<Long> removedIds = new ArrayList<>();
+        Set<Long> updatedIds = new LinkedHashSet<>();
+        Map<Long, NaturalKey> rekey = new LinkedHashMap<>();
+        for (Map.Entry<NaturalKey, List<SunriseSunsetKeyView>> group : groups.entrySet()) {
+            NaturalKey key = group.getKey();
+            // Rows are ordered by id, so the survivor is the oldest row
+            SunriseSunsetKeyView survivor = group.getValue().get(0);
+            if (group.getValue().size() > 1) {
+                List<Long> duplicateIds = group.getValue().subList(1, group.getValue().size()).stream()
+                        .map(SunriseSunsetKeyView::id)
+                        .toList();
+                repository.mergeInto(survivor.id(), duplicateIds);
+                spatialIndex.remove(duplicateIds);
+                removedIds.addAll(duplicateIds);
+                updatedIds.add(survivor.id());
+                mergedGroups++;
+                removedRows += duplicateIds.size();
+            }
+            if (!Objects.equals(survivor.latitudeKey(), key.latitudeKey())
+                    || !Objects.equals(survivor.longitudeKey(), key.longitudeKey())) {
+                rekey.put(survivor.id(), key);
+            }
+        }
+
+        if (!rekey.isEmpty()) {
+            // Set-based, as a backfill touches every row written before the keys existed; duplicates are merged
+            // by now, so the recomputed keys are unique
+            int cleared = repository.clearStaleKeys(sunriseSunsetKeys.scale());
+            int filled = repository.fillMissingKeys(sunriseSunsetKeys.scale());
+            logger.debug("Re-keyed sunrise/sunset rows: {} cleared, {} filled", cleared, filled);
+        }
+        if (removedRows > 0 || !rekey.isEmpty()) {
+            cacheInvalidator.all();
+            updatedIds.addAll(rekey.keySet());
+            changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.DELETED, removedIds);
+            changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.UPDATED, updatedIds);
+        }
+
+        DeduplicationReport report = new DeduplicationReport(rows.size(), mergedGroups, removedRows, rekey.size());
+        logger.info("Sunrise/sunset deduplication finished: {}", report);
+        return report;
+    }
+}
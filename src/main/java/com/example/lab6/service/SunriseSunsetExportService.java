@@ -0,0 +1,85 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.SunriseSunsetExportRecord;
+import com.example.lab6.repository.SunriseSunsetExportRow;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes every sunrise/sunset record as one JSON object per line. Rows are read from a database cursor
+ * and written as they arrive, so memory use does not depend on the table size.
+ */
+@Service
+@RequiredArgsConstructor
+public class SunriseSunsetExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetExportService.class);
+
+    private final SunriseSunsetRepository repository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @return number of records written
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        RequestCounter.increment(); // Увеличиваем счётчик
+        try (Stream<SunriseSunsetExportRow> rows = repository.streamExportRows()) {
+            long written = writeNdjson(rows, out);
+            logger.info("Exported {} sunrise/sunset records", written);
+            return written;
+        }
+    }
+
+    long writeNdjson(Stream<SunriseSunsetExportRow> rows, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        long written = 0;
+        SunriseSunsetExportRow current = null;
+        List<Long> locationIds = new ArrayList<>();
+        Iterator<SunriseSunsetExportRow> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            SunriseSunsetExportRow row = iterator.next();
+            if (current != null && !current.id().equals(row.id())) {
+                write(writer, generator, current, locationIds);
+                written++;
+                locationIds = new ArrayList<>();
+            }
+            current = row;
+            if (row.locationId() != null) {
+                locationIds.add(row.locationId());
+            }
+        }
+        if (current != null) {
+            write(writer, generator, current, locationIds);
+            written++;
+        }
+        generator.flush();
+        return written;
+    }
+
+    private static void write(ObjectWriter writer, JsonGenerator generator, SunriseSunsetExportRow row,
+                              List<Long> locationIds) throws IOException {
+        writer.writeValue(generator, new SunriseSunsetExportRecord(row.id(), row.latitude(), row.longitude(),
+                row.date(), row.sunrise(), row.sunset(), locationIds));
+        generator.writeRaw('\n');
+    }
+}
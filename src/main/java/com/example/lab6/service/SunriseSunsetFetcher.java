@@ -0,0 +1,97 @@
+package com.example.lab6.service;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.provider.SunriseSunsetProvider;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces identical provider calls: concurrent requests for the same coordinates and date wait
+ * for a single outbound call, and successful responses are kept for a short time afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class SunriseSunsetFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetFetcher.class);
+
+    private final SunriseSunsetProvider sunriseSunsetProvider;
+    private final BoundedCache<Map<String, Object>> sunriseSunsetFetchCache;
+    private final ConcurrentHashMap<String, CompletableFuture<Map<String, Object>>> inFlight =
+            new ConcurrentHashMap<>();
+
+    public Map<String, Object> fetch(double latitude, double longitude, String date) {
+        try {
+            return fetchAsync(latitude, longitude, date).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Map<String, Object>> fetchAsync(double latitude, double longitude, String date) {
+        String normalizedDate = normalizeDate(date);
+        String key = key(latitude, longitude, normalizedDate);
+
+        Map<String, Object> cached = sunriseSunsetFetchCache.get(key);
+        if (cached != null) {
+            logger.debug("Returning recently fetched sunrise/sunset data for key: {}", key);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Map<String, Object>> call = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            logger.debug("Joining in-flight sunrise/sunset fetch for key: {}", key);
+            return existing.copy();
+        }
+
+        CompletableFuture<Map<String, Object>> upstream;
+        try {
+            upstream = sunriseSunsetProvider.fetchAsync(latitude, longitude, normalizedDate);
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        upstream.whenComplete((response, error) -> {
+            if (error == null && response != null && "OK".equals(response.get("status"))) {
+                sunriseSunsetFetchCache.put(key, response);
+            }
+            inFlight.remove(key, call);
+            if (error != null) {
+                call.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                call.complete(response);
+            }
+        });
+        return call.copy();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    static String normalizeDate(String date) {
+        if (date == null || date.isBlank() || "today".equalsIgnoreCase(date.trim())) {
+            return LocalDate.now(ZoneOffset.UTC).toString();
+        }
+        return date.trim();
+    }
+
+    // Same precision as the query string sent to the remote API.
+    static String key(double latitude, double longitude, String date) {
+        return String.format(Locale.ROOT, "%.6f,%.6f,%s", latitude, longitude, date);
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.ChangeEvent;
+import com.example.lab6.dto.SunriseSunsetImportReport;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Loads sunrise/sunset records from CSV or NDJSON. Input is read line by line and written in chunks of
+ * {@code import.chunk-size} rows, each as one batched upsert in its own transaction, so memory use does
+ * not depend on the input size. Invalid rows are counted and skipped; a database error aborts the import
+ * and leaves the chunks already written in place. Rows of a chunk that share a natural key are written once,
+ * with the values of the last one and the location links of all of them.
+ *
+ * <p>CSV needs a header naming {@code latitude,longitude,date,sunrise,sunset} and optionally
+ * {@code locationIds} (separated by {@code ;}). NDJSON uses the same field names, which makes the output of
+ * {@link SunriseSunsetExportService} valid input. Times are UTC, as {@code HH:mm[:ss]} or in the provider's
+ * formats.
+ */
+@Service
+@RequiredArgsConstructor
+public class SunriseSunsetImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetImportService.class);
+    private static final int MAX_ERRORS = 20;
+    private static final List<String> REQUIRED_COLUMNS =
+            List.of("latitude", "longitude", "date", "sunrise", "sunset");
+
+    private final SunriseSunsetRepository repository;
+    private final SunriseSunsetKeys sunriseSunsetKeys;
+    private final CacheInvalidator cacheInvalidator;
+    private final ChangeFeed changeFeed;
+    private final SunriseSunsetSpatialIndex spatialIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${import.chunk-size:1000}")
+    private int chunkSize;
+
+    public enum Format { CSV, NDJSON }
+
+    record ImportRow(double latitude, double longitude, LocalDate date, LocalTime sunrise, LocalTime sunset,
+                     List<Long> locationIds) {
+    }
+
+    public SunriseSunsetImportReport importRecords(InputStream in, Format format) throws IOException {
+        RequestCounter.increment(); // Увеличиваем счётчик
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        SunriseSunsetImportReport report = readChunks(reader, format, chunkSize,
+                chunk -> transactionTemplate.executeWithoutResult(status -> writeChunk(chunk)));
+        logger.info("Sunrise/sunset import finished: {} accepted, {} rejected",
+                report.acceptedRows(), report.rejectedRows());
+        return report;
+    }
+
+    void writeChunk(List<ImportRow> chunk) {
+        List<SunriseSunset> rows = new ArrayList<>(chunk.size());
+        Set<LocalDate> dates = new LinkedHashSet<>();
+        Map<Long, Location> linked = new LinkedHashMap<>();
+        for (ImportRow row : chunk) {
+            SunriseSunset sunriseSunset = new SunriseSunset();
+            sunriseSunset.setLatitude(row.latitude());
+            sunriseSunset.setLongitude(row.longitude());
+            sunriseSunset.setDate(row.date());
+            sunriseSunset.setSunrise(row.sunrise());
+            sunriseSunset.setSunset(row.sunset());
+            // The upsert links by id only, skipping unknown ids, so detached id holders are enough here
+            for (Long locationId : row.locationIds()) {
+                sunriseSunset.getLocations().add(linked.computeIfAbsent(locationId, id -> {
+                    Location location = new Location();
+                    location.setId(id);
+                    return location;
+                }));
+            }
+            dates.add(row.date());
+            rows.add(sunriseSunsetKeys.applyKey(sunriseSunset));
+        }
+        // Repeated rows, e.g. an edited export fed back in, collapse to the last one
+        List<SunriseSunset> entities = sunriseSunsetKeys.distinctByKey(rows);
+        repository.upsertAll(entities);
+        List<Long> ids = entities.stream().map(SunriseSunset::getId).toList();
+        // Per chunk, so that readers see each committed chunk and unrelated cached entries stay in place
+        cacheInvalidator.sunriseSunsetsUpserted(ids, dates, linked.values());
+        changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.UPSERTED, ids);
+        spatialIndex.index(entities);
+    }
+
+    SunriseSunsetImportReport readChunks(BufferedReader reader, Format format, int chunkSize,
+                                         Consumer<List<ImportRow>> chunkWriter) throws IOException {
+        long accepted = 0;
+        long rejected = 0;
+        int chunks = 0;
+        List<String> errors = new ArrayList<>();
+        Map<String, Integer> columns = null;
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && columns == null) {
+                columns = parseHeader(line);
+                continue;
+            }
+            try {
+                chunk.add(format == Format.CSV ? parseCsv(line, columns) : parseNdjson(line));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add("line " + lineNumber + ": " + e.getMessage());
+                }
+                continue;
+            }
+            if (chunk.size() == chunkSize) {
+                chunkWriter.accept(chunk);
+                accepted += chunk.size();
+                chunks++;
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkWriter.accept(chunk);
+            accepted += chunk.size();
+            chunks++;
+        }
+        return new SunriseSunsetImportReport(accepted, rejected, chunks, errors);
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = line.split(",", -1);
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i].trim(), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column '" + required + "'");
+            }
+        }
+        return columns;
+    }
+
+    private static ImportRow parseCsv(String line, Map<String, Integer> columns) {
+        String[] values = line.split(",", -1);
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("expected " + columns.size() + " columns but got " + values.length);
+        }
+        List<Long> locationIds = new ArrayList<>();
+        Integer locationIdsColumn = columns.get("locationIds");
+        if (locationIdsColumn != null) {
+            for (String id : values[locationIdsColumn].split(";")) {
+                if (!id.isBlank()) {
+                    locationIds.add(parseLong("locationIds", id));
+                }
+            }
+        }
+        return toRow(values[columns.get("latitude")], values[columns.get("longitude")], values[columns.get("date")],
+                values[columns.get("sunrise")], values[columns.get("sunset")], locationIds);
+    }
+
+    private ImportRow parseNdjson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("malformed JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        List<Long> locationIds = new ArrayList<>();
+        JsonNode ids = node.path("locationIds");
+        if (!ids.isMissingNode() && !ids.isNull()) {
+            if (!ids.isArray()) {
+                throw new IllegalArgumentException("locationIds must be an array");
+            }
+            ids.forEach(id -> locationIds.add(parseLong("locationIds", id.asText())));
+        }
+        return toRow(node.path("latitude").asText(), node.path("longitude").asText(), node.path("date").asText(),
+                node.path("sunrise").asText(), node.path("sunset").asText(), locationIds);
+    }
+
+    private static ImportRow toRow(String latitude, String longitude, String date, String sunrise, String sunset,
+                                   List<Long> locationIds) {
+        double lat = parseCoordinate("latitude", latitude, 90);
+        double lng = parseCoordinate("longitude", longitude, 180);
+        LocalDate day;
+        try {
+            day = LocalDate.parse(date.trim());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("invalid date '" + date + "'");
+        }
+        return new ImportRow(lat, lng, day, parseTime("sunrise", sunrise), parseTime("sunset", sunset), locationIds);
+    }
+
+    private static double parseCoordinate(String field, String value, double limit) {
+        double coordinate;
+        try {
+            coordinate = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + field + " '" + value + "'");
+        }
+        if (!(Math.abs(coordinate) <= limit)) {
+            throw new IllegalArgumentException(field + " " + value + " is out of range");
+        }
+        return coordinate;
+    }
+
+    private static LocalTime parseTime(String field, String value) {
+        try {
+            return LocalTime.parse(value.trim());
+        } catch (DateTimeException e) {
+            try {
+                return SunriseSunsetService.parseTime(value);
+            } catch (DateTimeException | IndexOutOfBoundsException ignored) {
+                throw new IllegalArgumentException("invalid " + field + " '" + value + "'");
+            }
+        }
+    }
+
+    private static long parseLong(String field, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + field + " '" + value + "'");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.lab6.service;
+
+import com.example.lab6.model.SunriseSunset;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Natural key of a sunrise/sunset record: latitude and longitude rounded to
+ * {@code sunrise-sunset.key-precision} decimal places (4 is about 11 m), plus the date.
+ */
+@Component
+public class SunriseSunsetKeys {
+
+    private final double scale;
+
+    public record NaturalKey(long latitudeKey, long longitudeKey, LocalDate date) {
+    }
+
+    public SunriseSunsetKeys(@Value("${sunrise-sunset.key-precision:4}") int precision) {
+        this.scale = Math.pow(10, precision);
+    }
+
+    /**
+     * Factor the coordinates are multiplied by before rounding, for set-based key updates.
+     */
+    public double scale() {
+        return scale;
+    }
+
+    public long quantize(double coordinate) {
+        return Math.round(coordinate * scale);
+    }
+
+    public NaturalKey keyOf(double latitude, double longitude, LocalDate date) {
+        return new NaturalKey(quantize(latitude), quantize(longitude), date);
+    }
+
+    public SunriseSunset applyKey(SunriseSunset sunriseSunset) {
+        sunriseSunset.setLatitudeKey(quantize(sunriseSunset.getLatitude()));
+        sunriseSunset.setLongitudeKey(quantize(sunriseSunset.getLongitude()));
+        return sunriseSunset;
+    }
+
+    /**
+     * One record per natural key, as a batched upsert may not touch the same row twice: the last record of a
+     * key wins and also gets the location links of the earlier ones. Keys must already be applied.
+     */
+    public List<SunriseSunset> distinctByKey(List<SunriseSunset> sunriseSunsets) {
+        Map<NaturalKey, SunriseSunset> byKey = new LinkedHashMap<>();
+        for (SunriseSunset sunriseSunset : sunriseSunsets) {
+            byKey.merge(new NaturalKey(sunriseSunset.getLatitudeKey(), sunriseSunset.getLongitudeKey(),
+                    sunriseSunset.getDate()), sunriseSunset, (earlier, later) -> {
+                        later.getLocations().addAll(earlier.getLocations());
+                        return later;
+                    });
+        }
+        return byKey.size() == sunriseSunsets.size() ? sunriseSunsets : new ArrayList<>(byKey.values());
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.ChangeEvent;
+import com.example.lab6.dto.PrecomputeJobRequest;
+import com.example.lab6.dto.PrecomputeJobStatus;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.LocationCoordinates;
+import com.example.lab6.repository.LocationRepository;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background jobs that generate a date range of sunrise/sunset records for a set of locations,
+ * link every row to its location and write them in chunks. Provider calls are capped at
+ * {@code precompute.parallelism} in flight and paced to {@code precompute.max-requests-per-second}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SunriseSunsetPrecomputeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetPrecomputeService.class);
+
+    private final SunriseSunsetRepository repository;
+    private final LocationRepository locationRepository;
+    private final SunriseSunsetFetcher sunriseSunsetFetcher;
+    private final CacheInvalidator cacheInvalidator;
+    private final ChangeFeed changeFeed;
+    private final SunriseSunsetSpatialIndex spatialIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService precomputeExecutor;
+    private final SunriseSunsetKeys sunriseSunsetKeys;
+    private final Map<String, PrecomputeJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${precompute.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${precompute.parallelism:8}")
+    private int parallelism;
+
+    @Value("${precompute.max-days:366}")
+    private int maxDays;
+
+    @Value("${precompute.retained-jobs:100}")
+    private int retainedJobs;
+
+    @Value("${precompute.max-requests-per-second:20}")
+    private double maxRequestsPerSecond;
+
+    public PrecomputeJobStatus submit(PrecomputeJobRequest request) {
+        RequestCounter.increment(); // Увеличиваем счётчик
+        if (request.from() == null || request.to() == null) {
+            throw new IllegalArgumentException("Both 'from' and 'to' dates are required");
+        }
+        if (request.to().isBefore(request.from())) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        long days = ChronoUnit.DAYS.between(request.from(), request.to()) + 1;
+        if (days > maxDays) {
+            throw new IllegalArgumentException("Date range of " + days + " days exceeds the limit of " + maxDays);
+        }
+
+        List<Target> targets = transactionTemplate.execute(status -> resolveTargets(request, false));
+        return schedule(request, targets, days);
+    }
+
+    /**
+     * Precomputes {@code date} for every stored location that has coordinates, skipping the ones that do not.
+     */
+    public PrecomputeJobStatus submitForAllLocations(LocalDate date) {
+        PrecomputeJobRequest request = new PrecomputeJobRequest(List.of(), date, date, null);
+        return schedule(request, transactionTemplate.execute(status -> resolveTargets(request, true)), 1);
+    }
+
+    private PrecomputeJobStatus schedule(PrecomputeJobRequest request, List<Target> targets, long days) {
+        PrecomputeJob job = new PrecomputeJob(UUID.randomUUID().toString(), request.from(), request.to(),
+                targets.size(), days * targets.size());
+        long delay = request.startAt() != null
+                ? Math.max(0, Duration.between(Instant.now(), request.startAt()).toMillis())
+                : 0;
+        pruneFinishedJobs();
+        jobs.put(job.getId(), job);
+        job.setFuture(precomputeExecutor.schedule(() -> run(job, targets, request.from(), request.to()),
+                delay, TimeUnit.MILLISECONDS));
+        logger.info("Submitted precompute job {} for {} locations, {} to {}, starting in {} ms",
+                job.getId(), targets.size(), request.from(), request.to(), delay);
+        return job.snapshot();
+    }
+
+    public Optional<PrecomputeJobStatus> getStatus(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(PrecomputeJob::snapshot);
+    }
+
+    public List<PrecomputeJobStatus> getAll() {
+        return jobs.values().stream()
+                .map(PrecomputeJob::snapshot)
+                .sorted(Comparator.comparing(PrecomputeJobStatus::submittedAt))
+                .toList();
+    }
+
+    public Optional<PrecomputeJobStatus> cancel(String id) {
+        PrecomputeJob job = jobs.get(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        job.cancel();
+        logger.info("Cancellation requested for precompute job {}", id);
+        return Optional.of(job.snapshot());
+    }
+
+    private void run(PrecomputeJob job, List<Target> targets, LocalDate from, LocalDate to) {
+        job.start();
+        try {
+            Semaphore permits = new Semaphore(parallelism);
+            RequestPacer pacer = new RequestPacer(maxRequestsPerSecond);
+            List<PendingRow> pending = new ArrayList<>(chunkSize);
+            for (Target target : targets) {
+                for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                    if (job.isCancelRequested()) {
+                        writeChunk(job, pending);
+                        job.finish(PrecomputeJob.State.CANCELLED);
+                        logger.info("Precompute job {} cancelled", job.getId());
+                        return;
+                    }
+                    permits.acquireUninterruptibly();
+                    pacer.acquire();
+                    CompletableFuture<Map<String, Object>> fetch =
+                            sunriseSunsetFetcher.fetchAsync(target.latitude(), target.longitude(), date.toString());
+                    fetch.whenComplete((response, error) -> permits.release());
+                    pending.add(new PendingRow(target, date, fetch));
+                    if (pending.size() >= chunkSize) {
+                        writeChunk(job, pending);
+                        pending.clear();
+                    }
+                }
+            }
+            writeChunk(job, pending);
+            job.finish(PrecomputeJob.State.COMPLETED);
+            logger.info("Precompute job {} completed: {}", job.getId(), job.snapshot());
+        } catch (RuntimeException e) {
+            logger.error("Precompute job {} failed", job.getId(), e);
+            job.fail(e);
+        }
+    }
+
+    private void writeChunk(PrecomputeJob job, List<PendingRow> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<PendingRow> fetched = new ArrayList<>(pending.size());
+        int failed = 0;
+        for (PendingRow row : pending) {
+            try {
+                Map<String, Object> response = row.fetch().join();
+                if (response != null && "OK".equals(response.get("status"))) {
+                    fetched.add(row);
+                    continue;
+                }
+                job.addError(row.date() + " @ location " + row.target().locationId() + ": provider status "
+                        + (response != null ? response.get("status") : null));
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                job.addError(row.date() + " @ location " + row.target().locationId() + ": " + cause.getMessage());
+            }
+            failed++;
+        }
+
+        int saved = fetched.isEmpty() ? 0 : transactionTemplate.execute(status -> saveRows(fetched));
+        job.recordChunk(pending.size(), saved, failed);
+    }
+
+    private int saveRows(List<PendingRow> rows) {
+        Set<Long> locationIds = new LinkedHashSet<>();
+        rows.forEach(row -> locationIds.add(row.target().locationId()));
+        Map<Long, Location> locations = new HashMap<>();
+        locationRepository.findAllById(locationIds).forEach(location -> locations.put(location.getId(), location));
+
+        List<SunriseSunset> entities = new ArrayList<>(rows.size());
+        Set<LocalDate> dates = new LinkedHashSet<>();
+        for (PendingRow row : rows) {
+            SunriseSunset sunriseSunset = sunriseSunsetKeys.applyKey(SunriseSunsetService.toEntity(row.fetch().join(),
+                    row.target().latitude(), row.target().longitude(), row.date().toString()));
+            Location location = locations.get(row.target().locationId());
+            if (location != null) {
+                sunriseSunset.getLocations().add(location);
+            }
+            entities.add(sunriseSunset);
+            dates.add(sunriseSunset.getDate());
+        }
+        // Locations that share coordinates produce the same natural key on the same date
+        entities = sunriseSunsetKeys.distinctByKey(entities);
+        repository.upsertAll(entities);
+        List<Long> ids = entities.stream().map(SunriseSunset::getId).toList();
+        cacheInvalidator.sunriseSunsetsUpserted(ids, dates, locations.values());
+        changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.UPSERTED, ids);
+        spatialIndex.index(entities);
+        return entities.size();
+    }
+
+    /**
+     * One projection query gives both the existence check and the fallback coordinates of every target.
+     */
+    private List<Target> resolveTargets(PrecomputeJobRequest request, boolean skipUnresolved) {
+        List<PrecomputeJobRequest.Target> requested = request.locations();
+        List<LocationCoordinates> stored = requested == null || requested.isEmpty()
+                ? locationRepository.findAllCoordinates()
+                : locationRepository.findCoordinatesByIdIn(
+                        requested.stream().map(PrecomputeJobRequest.Target::locationId).toList());
+        Map<Long, LocationCoordinates> coordinates = new HashMap<>();
+        stored.forEach(location -> coordinates.put(location.locationId(), location));
+        if (requested == null || requested.isEmpty()) {
+            requested = stored.stream()
+                    .map(location -> new PrecomputeJobRequest.Target(location.locationId(), null, null))
+                    .toList();
+        }
+
+        List<Target> targets = new ArrayList<>(requested.size());
+        List<Long> unresolved = new ArrayList<>();
+        for (PrecomputeJobRequest.Target target : requested) {
+            LocationCoordinates location = coordinates.get(target.locationId());
+            if (location == null) {
+                unresolved.add(target.locationId());
+            } else if (target.latitude() != null && target.longitude() != null) {
+                targets.add(new Target(target.locationId(), target.latitude(), target.longitude()));
+            } else if (location.latitude() != null && location.longitude() != null) {
+                targets.add(new Target(target.locationId(), location.latitude(), location.longitude()));
+            } else {
+                unresolved.add(target.locationId());
+            }
+        }
+        if (!unresolved.isEmpty() && skipUnresolved) {
+            logger.info("Skipping {} locations without coordinates", unresolved.size());
+        } else if (!unresolved.isEmpty()) {
+            throw new IllegalArgumentException("Unknown locations or no coordinates for locations: " + unresolved);
+        }
+        return targets;
+    }
+
+    private void pruneFinishedJobs() {
+        if (jobs.size() < retainedJobs) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(PrecomputeJob::isFinished)
+                .map(PrecomputeJob::snapshot)
+                .sorted(Comparator.comparing(PrecomputeJobStatus::submittedAt))
+                .limit(jobs.size() - retainedJobs + 1L)
+                .forEach(status -> jobs.remove(status.id()));
+    }
+
+    private record Target(Long locationId, double latitude, double longitude) {
+    }
+
+    private record PendingRow(Target target, LocalDate date, CompletableFuture<Map<String, Object>> fetch) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.PrecomputeJobStatus;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Stores tomorrow's sunrise/sunset for every location ahead of midnight (UTC), so {@code date=today} lookups
+ * find a stored record once the date rolls over. Runs as a precompute job, paced by
+ * {@code precompute.max-requests-per-second}; set {@code prefetch.tomorrow.cron} to {@code -} to turn it off.
+ */
+@Component
+@RequiredArgsConstructor
+public class SunriseSunsetPrefetchScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetPrefetchScheduler.class);
+
+    private final SunriseSunsetPrecomputeService precomputeService;
+
+    @Scheduled(cron = "${prefetch.tomorrow.cron:0 0 22 * * *}", zone = "UTC")
+    public void prefetchTomorrow() {
+        LocalDate tomorrow = LocalDate.now(ZoneOffset.UTC).plusDays(1);
+        try {
+            PrecomputeJobStatus job = precomputeService.submitForAllLocations(tomorrow);
+            logger.info("Scheduled prefetch of {} for {} locations as precompute job {}",
+                    tomorrow, job.locations(), job.id());
+        } catch (RuntimeException e) {
+            logger.error("Failed to schedule the prefetch of {}", tomorrow, e);
+        }
+    }
+}
@@ -1,92 +1,304 @@
 package com.example.lab6.service;
 
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CacheTags;
+import com.example.lab6.dto.ChangeEvent;
+import com.example.lab6.dto.KeysetPage;
+import com.example.lab6.dto.LocationView;
+import com.example.lab6.dto.SunriseSunsetMatch;
+import com.example.lab6.dto.SunriseSunsetView;
 import com.example.lab6.model.Location;
 import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.IdLink;
 import com.example.lab6.repository.LocationRepository;
 import com.example.lab6.repository.SunriseSunsetRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
 public class SunriseSunsetService {
 
     private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetService.class);
-    private static final String API_URL = "https://api.sunrise-sunset.org/json";
+    private static final DateTimeFormatter API_TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm:ss a", Locale.US);
     private final SunriseSunsetRepository repository;
     private final LocationRepository locationRepository;
-    private final RestTemplate restTemplate;
-    private final Map<String, List<SunriseSunset>> sunriseSunsetCache;
+    private final SunriseSunsetFetcher sunriseSunsetFetcher;
+    private final BoundedCache<List<SunriseSunset>> sunriseSunsetCache;
+    private final BoundedCache<List<SunriseSunsetView>> sunriseSunsetViewCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final ChangeFeed changeFeed;
+    private final SunriseSunsetSpatialIndex spatialIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final SunriseSunsetKeys sunriseSunsetKeys;
+    private final ExecutorService sunriseSunsetSaveExecutor;
+    private final Pages pages;
 
-    @Transactional
-    @SuppressWarnings("unchecked")
-    public Map<String, Object> getSunriseSunset(double latitude, double longitude, String date, List<Long> locationIds) {
+    @Value("${sunrise-sunset.spatial.max-radius-km:50}")
+    private double maxRadiusKm;
+
+    /**
+     * Serves a stored record or fetches one without blocking: no request thread or database connection is
+     * held while the provider answers, and the record is saved in its own transaction afterwards.
+     *
+     * @param toleranceKm when set, a stored record for the same date up to this far away is served instead of
+     *                    asking the provider
+     */
+    public CompletableFuture<Map<String, Object>> getSunriseSunsetAsync(
+            double latitude, double longitude, String date, List<Long> locationIds, Double toleranceKm) {
         RequestCounter.increment(); // Увеличиваем счётчик
-        String url = String.format("%s?lat=%f&lng=%f&date=%s",
-                API_URL, latitude, longitude, date != null ? date : "today");
-        Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+        Map<String, Object> stored = transactionTemplate.execute(
+                status -> findStored(latitude, longitude, date, toleranceKm)
+                .map(sunriseSunset -> serveStored(sunriseSunset, locationIds))
+                .orElse(null));
+        if (stored != null) {
+            return CompletableFuture.completedFuture(stored);
+        }
+        return sunriseSunsetFetcher.fetchAsync(latitude, longitude, date)
+                .thenApplyAsync(response -> transactionTemplate.execute(
+                        status -> saveFetched(response, latitude, longitude, date, locationIds)),
+                        sunriseSunsetSaveExecutor);
+    }
+
+    private Map<String, Object> saveFetched(Map<String, Object> response, double latitude, double longitude,
+                                            String date, List<Long> locationIds) {
         if (response == null || !"OK".equals(response.get("status"))) {
             throw new RuntimeException("Failed to fetch sunrise/sunset data");
         }
 
+        SunriseSunset sunriseSunset = sunriseSunsetKeys.applyKey(toEntity(response, latitude, longitude, date));
+
+        if (locationIds != null && !locationIds.isEmpty()) {
+            List<Location> locations = locationRepository.findAllById(locationIds);
+            sunriseSunset.getLocations().addAll(locations);
+        }
+
+        SunriseSunset saved = repository.upsertAll(List.of(sunriseSunset)).get(0);
+        cacheInvalidator.sunriseSunsetsUpserted(List.of(saved.getId()), List.of(saved.getDate()),
+                saved.getLocations());
+        changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.UPSERTED, List.of(saved.getId()));
+        spatialIndex.index(List.of(saved));
+        logger.debug("Cache invalidated after fetching sunrise/sunset data");
+        return response;
+    }
+
+    private Optional<SunriseSunset> findStored(double latitude, double longitude, String date, Double toleranceKm) {
+        LocalDate day = parseDate(date);
+        boolean tolerant = toleranceKm != null && toleranceKm > 0;
+        if (tolerant) {
+            checkRadius(toleranceKm, "toleranceKm");
+        }
+        Optional<SunriseSunset> exact = repository.findByLatitudeKeyAndLongitudeKeyAndDate(
+                sunriseSunsetKeys.quantize(latitude), sunriseSunsetKeys.quantize(longitude), day);
+        if (exact.isPresent() || !tolerant) {
+            return exact;
+        }
+        return spatialIndex.nearest(day, latitude, longitude, toleranceKm).flatMap(match -> {
+            logger.debug("Reusing sunrise/sunset record ID: {} stored {} km away", match.id(), match.distanceKm());
+            return repository.findById(match.id());
+        });
+    }
+
+    private void checkRadius(double radiusKm, String name) {
+        if (!(radiusKm > 0 && radiusKm <= maxRadiusKm)) {
+            throw new IllegalArgumentException(name + " must be in (0, " + maxRadiusKm + "] km");
+        }
+    }
+
+    private Map<String, Object> serveStored(SunriseSunset sunriseSunset, List<Long> locationIds) {
+        logger.debug("Serving stored sunrise/sunset record ID: {}", sunriseSunset.getId());
+        if (locationIds != null && !locationIds.isEmpty()) {
+            List<Location> locations = locationRepository.findAllById(locationIds);
+            int linked = repository.addLocationLinks(sunriseSunset.getId(),
+                    locations.stream().map(Location::getId).toList());
+            if (linked > 0) {
+                cacheInvalidator.sunriseSunsetChanged(sunriseSunset.getId(), List.of(sunriseSunset.getDate()),
+                        locations);
+                changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.UPDATED,
+                        List.of(sunriseSunset.getId()));
+            }
+        }
+        return toResponse(sunriseSunset);
+    }
+
+    /**
+     * Provider-shaped response for a stored record. Only the fields kept in the database are present.
+     */
+    static Map<String, Object> toResponse(SunriseSunset sunriseSunset) {
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("sunrise", API_TIME_FORMAT.format(sunriseSunset.getSunrise()));
+        results.put("sunset", API_TIME_FORMAT.format(sunriseSunset.getSunset()));
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("results", results);
+        response.put("status", "OK");
+        response.put("tzid", "UTC");
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    static SunriseSunset toEntity(Map<String, Object> response, double latitude, double longitude, String date) {
         SunriseSunset sunriseSunset = new SunriseSunset();
         sunriseSunset.setLatitude(latitude);
         sunriseSunset.setLongitude(longitude);
-        sunriseSunset.setDate(date != null ? date : "today");
+        sunriseSunset.setDate(parseDate(date));
 
         Map<String, Object> results = (Map<String, Object>) response.get("results");
-        sunriseSunset.setSunrise((String) results.get("sunrise"));
-        sunriseSunset.setSunset((String) results.get("sunset"));
+        sunriseSunset.setSunrise(parseTime((String) results.get("sunrise")));
+        sunriseSunset.setSunset(parseTime((String) results.get("sunset")));
+        return sunriseSunset;
+    }
 
-        if (locationIds != null && !locationIds.isEmpty()) {
-            List<Location> locations = locationRepository.findAllById(locationIds);
-            sunriseSunset.getLocations().addAll(locations);
+    static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(SunriseSunsetFetcher.normalizeDate(date));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + date, e);
         }
+    }
 
-        repository.save(sunriseSunset);
-        sunriseSunsetCache.clear();
-        logger.debug("Cache cleared after fetching sunrise/sunset data");
-        return response;
+    // "7:27:02 AM" by default, an ISO-8601 timestamp when the API is called with formatted=0
+    static LocalTime parseTime(String value) {
+        if (value.indexOf('T') >= 0) {
+            return OffsetDateTime.parse(value).withOffsetSameInstant(ZoneOffset.UTC).toLocalTime();
+        }
+        return LocalTime.parse(value.trim(), API_TIME_FORMAT);
     }
 
+    /**
+     * Records with id greater than {@code after}, in id order, as read models; see {@link LocationService#getPage}.
+     */
     @Transactional(readOnly = true)
-    public List<SunriseSunset> getAll() {
+    public KeysetPage<SunriseSunsetView> getPage(Long after, Integer limit, boolean expand) {
         RequestCounter.increment(); // Увеличиваем счётчик
-        String cacheKey = "all_sunrise_sunset";
-        if (sunriseSunsetCache.containsKey(cacheKey)) {
+        long cursor = after != null ? after : 0;
+        int pageLimit = pages.resolveLimit(limit);
+        String cacheKey = "sunrise_sunset_page_" + cursor + "_" + pageLimit + (expand ? "_expanded" : "");
+        List<SunriseSunsetView> cached = sunriseSunsetViewCache.get(cacheKey);
+        if (cached != null) {
             logger.debug("Returning cached sunrise/sunset records for key: {}", cacheKey);
-            return sunriseSunsetCache.get(cacheKey);
+            return KeysetPage.of(cached, pageLimit, SunriseSunsetView::id);
+        }
+        logger.debug("Cache miss, querying database for sunrise/sunset records after ID: {}", cursor);
+        List<SunriseSunsetView> sunriseSunsets = withLinks(
+                repository.findViewsAfter(cursor, PageRequest.of(0, pageLimit)), expand);
+        String[] extraTags = sunriseSunsets.size() < pageLimit
+                ? new String[]{CacheTags.ALL_SUNRISE_SUNSETS}
+                : new String[0];
+        sunriseSunsetViewCache.put(cacheKey, sunriseSunsets,
+                CacheTags.forSunriseSunsetViews(sunriseSunsets, extraTags));
+        return KeysetPage.of(sunriseSunsets, pageLimit, SunriseSunsetView::id);
+    }
+
+    private List<SunriseSunsetView> withLinks(List<SunriseSunsetView> sunriseSunsets, boolean expand) {
+        if (sunriseSunsets.isEmpty()) {
+            return sunriseSunsets;
+        }
+        Map<Long, List<Long>> links = IdLink.groupByOwner(
+                repository.findLocationLinks(sunriseSunsets.stream().map(SunriseSunsetView::id).toList()));
+        Map<Long, LocationView> linked = new HashMap<>();
+        if (expand) {
+            Set<Long> linkedIds = new HashSet<>();
+            links.values().forEach(linkedIds::addAll);
+            if (!linkedIds.isEmpty()) {
+                locationRepository.findViewsByIdIn(linkedIds).forEach(view -> linked.put(view.id(), view));
+            }
+        }
+        List<SunriseSunsetView> views = new ArrayList<>(sunriseSunsets.size());
+        for (SunriseSunsetView sunriseSunset : sunriseSunsets) {
+            List<Long> ids = links.getOrDefault(sunriseSunset.id(), List.of());
+            views.add(sunriseSunset.withLinks(ids, expand ? LocationService.present(ids, linked) : null));
         }
-        logger.debug("Cache miss, querying database for all sunrise/sunset records");
-        List<SunriseSunset> sunriseSunsets = repository.findAll();
-        sunriseSunsetCache.put(cacheKey, sunriseSunsets);
-        return sunriseSunsets;
+        return views;
+    }
+
+    /**
+     * Stored records of {@code date} within {@code radiusKm} of the point, nearest first, at most
+     * {@code pagination.max-limit} of them. Served from {@link SunriseSunsetSpatialIndex}.
+     */
+    @Transactional(readOnly = true)
+    public List<SunriseSunsetMatch> findWithin(double latitude, double longitude, LocalDate date, double radiusKm) {
+        RequestCounter.increment(); // Увеличиваем счётчик
+        checkRadius(radiusKm, "radiusKm");
+        List<SunriseSunsetSpatialIndex.Match> matches = spatialIndex.within(date, latitude, longitude, radiusKm);
+        return toMatches(matches.subList(0, Math.min(matches.size(), pages.maxLimit())));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<SunriseSunsetMatch> findNearest(double latitude, double longitude, LocalDate date,
+                                                    double maxDistanceKm) {
+        RequestCounter.increment(); // Увеличиваем счётчик
+        checkRadius(maxDistanceKm, "maxDistanceKm");
+        return spatialIndex.nearest(date, latitude, longitude, maxDistanceKm)
+                .flatMap(match -> toMatches(List.of(match)).stream().findFirst());
+    }
+
+    private List<SunriseSunsetMatch> toMatches(List<SunriseSunsetSpatialIndex.Match> matches) {
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, SunriseSunsetView> views = new HashMap<>();
+        repository.findViewsByIdIn(matches.stream().map(SunriseSunsetSpatialIndex.Match::id).toList())
+                .forEach(view -> views.put(view.id(), view));
+        List<SunriseSunsetMatch> result = new ArrayList<>(matches.size());
+        for (SunriseSunsetSpatialIndex.Match match : matches) {
+            SunriseSunsetView view = views.get(match.id());
+            if (view != null) {
+                result.add(new SunriseSunsetMatch(view, match.distanceKm()));
+            }
+        }
+        return result;
     }
 
     @Transactional(readOnly = true)
     public Optional<SunriseSunset> getById(Long id) {
         RequestCounter.increment(); // Увеличиваем счётчик
         String cacheKey = "sunrise_sunset_" + id;
-        if (sunriseSunsetCache.containsKey(cacheKey)) {
+        List<SunriseSunset> cached = sunriseSunsetCache.get(cacheKey);
+        if (cached != null) {
             logger.debug("Returning cached sunrise/sunset record for key: {}", cacheKey);
-            return Optional.ofNullable(sunriseSunsetCache.get(cacheKey).get(0));
+            return Optional.ofNullable(cached.get(0));
         }
         logger.debug("Cache miss, querying database for sunrise/sunset ID: {}", id);
         Optional<SunriseSunset> sunriseSunset = repository.findById(id);
-        sunriseSunset.ifPresent(ss -> sunriseSunsetCache.put(cacheKey, List.of(ss)));
+        sunriseSunset.ifPresent(ss ->
+                sunriseSunsetCache.put(cacheKey, List.of(ss), List.of(CacheTags.sunriseSunset(id))));
         return sunriseSunset;
     }
 
+    /**
+     * Version of the record without loading it, for conditional GETs.
+     */
     @Transactional(readOnly = true)
-    public List<SunriseSunset> getByDate(String date) {
+    public Optional<Long> getVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SunriseSunset> getByDate(LocalDate date) {
         RequestCounter.increment(); // Увеличиваем счётчик
         try {
             logger.info("Fetching sunrise/sunset records for date: {}", date);
@@ -96,14 +308,16 @@ public class SunriseSunsetService {
                 throw new IllegalStateException("SunriseSunsetCache is not initialized");
             }
             logger.debug("Checking cache for key: {}", cacheKey);
-            if (sunriseSunsetCache.containsKey(cacheKey)) {
+            List<SunriseSunset> cached = sunriseSunsetCache.get(cacheKey);
+            if (cached != null) {
                 logger.info("Returning cached sunrise/sunset records for date: {}", date);
-                return sunriseSunsetCache.get(cacheKey);
+                return cached;
             }
             logger.info("Cache miss, querying database for date: {}", date);
             List<SunriseSunset> sunriseSunsets = repository.findByDate(date);
             logger.info("Found {} sunrise/sunset records for date: {}", sunriseSunsets.size(), date);
-            sunriseSunsetCache.put(cacheKey, sunriseSunsets);
+            sunriseSunsetCache.put(cacheKey, sunriseSunsets,
+                    CacheTags.forSunriseSunsets(sunriseSunsets, CacheTags.date(date)));
             return sunriseSunsets;
         } catch (Exception e) {
             logger.error("Error while fetching sunrise/sunset records for date: {}", date, e);
@@ -111,6 +325,16 @@ public class SunriseSunsetService {
         }
     }
 
+    @Transactional(readOnly = true)
+    public List<SunriseSunset> getByDateRange(LocalDate from, LocalDate to) {
+        RequestCounter.increment(); // Увеличиваем счётчик
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        logger.debug("Querying database for sunrise/sunset records by date range: {} - {}", from, to);
+        return repository.findByDateBetween(from, to);
+    }
+
     @Transactional
     public SunriseSunset create(SunriseSunset sunriseSunset, List<Long> locationIds) {
         RequestCounter.increment(); // Увеличиваем счётчик
@@ -118,9 +342,13 @@ public class SunriseSunsetService {
             List<Location> locations = locationRepository.findAllById(locationIds);
             sunriseSunset.getLocations().addAll(locations);
         }
-        SunriseSunset saved = repository.save(sunriseSunset);
-        sunriseSunsetCache.clear();
-        logger.debug("Cache cleared after creating sunrise/sunset record");
+        SunriseSunset upserted = repository.upsertAll(List.of(sunriseSunsetKeys.applyKey(sunriseSunset))).get(0);
+        SunriseSunset saved = repository.findById(upserted.getId()).orElseThrow();
+        cacheInvalidator.sunriseSunsetsUpserted(List.of(saved.getId()), List.of(saved.getDate()),
+                saved.getLocations());
+        changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.UPSERTED, List.of(saved.getId()));
+        spatialIndex.index(List.of(saved));
+        logger.debug("Cache invalidated after creating sunrise/sunset record ID: {}", saved.getId());
         return saved;
     }
 
@@ -128,11 +356,14 @@ public class SunriseSunsetService {
     public Optional<SunriseSunset> update(Long id, SunriseSunset updatedData, List<Long> locationIds) {
         RequestCounter.increment(); // Увеличиваем счётчик
         return repository.findById(id).map(sunriseSunset -> {
+            List<LocalDate> affectedDates = List.of(sunriseSunset.getDate(), updatedData.getDate());
+            List<Location> affectedLocations = new ArrayList<>(sunriseSunset.getLocations());
             sunriseSunset.setLatitude(updatedData.getLatitude());
             sunriseSunset.setLongitude(updatedData.getLongitude());
             sunriseSunset.setDate(updatedData.getDate());
             sunriseSunset.setSunrise(updatedData.getSunrise());
             sunriseSunset.setSunset(updatedData.getSunset());
+            sunriseSunsetKeys.applyKey(sunriseSunset);
 
             if (locationIds != null) {
                 sunriseSunset.getLocations().clear();
@@ -140,8 +371,11 @@ public class SunriseSunsetService {
                 sunriseSunset.getLocations().addAll(locations);
             }
             SunriseSunset saved = repository.save(sunriseSunset);
-            sunriseSunsetCache.clear();
-            logger.debug("Cache cleared after updating sunrise/sunset record ID: {}", id);
+            affectedLocations.addAll(saved.getLocations());
+            cacheInvalidator.sunriseSunsetChanged(id, affectedDates, affectedLocations);
+            changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.UPDATED, List.of(id));
+            spatialIndex.index(List.of(saved));
+            logger.debug("Cache invalidated after updating sunrise/sunset record ID: {}", id);
             return saved;
         });
     }
@@ -150,9 +384,12 @@ public class SunriseSunsetService {
     public boolean delete(Long id) {
         RequestCounter.increment(); // Увеличиваем счётчик
         return repository.findById(id).map(sunriseSunset -> {
+            List<Location> affectedLocations = new ArrayList<>(sunriseSunset.getLocations());
             repository.delete(sunriseSunset);
-            sunriseSunsetCache.clear();
-            logger.debug("Cache cleared after deleting sunrise/sunset record ID: {}", id);
+            cacheInvalidator.sunriseSunsetChanged(id, List.of(sunriseSunset.getDate()), affectedLocations);
+            changeFeed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.DELETED, List.of(id));
+            spatialIndex.remove(List.of(id));
+            logger.debug("Cache invalidated after deleting sunrise/sunset record ID: {}", id);
             return true;
         }).orElse(false);
     }
@@ -0,0 +1,211 @@
+package com.example.lab6.service;
+
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.SunriseSunsetKeyView;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory grid over the coordinates of stored sunrise/sunset records, one grid per date, for finding
+ * records near a point without a database query. Cells are {@code sunrise-sunset.spatial.cell-degrees}
+ * wide. The index is loaded on startup and kept current by the write paths; changes made inside a
+ * transaction are applied once it commits.
+ */
+@Component
+public class SunriseSunsetSpatialIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetSpatialIndex.class);
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    public record Match(Long id, double latitude, double longitude, double distanceKm) {
+    }
+
+    private record Point(Long id, double latitude, double longitude, LocalDate date) {
+    }
+
+    private final SunriseSunsetRepository repository;
+    private final double cellDegrees;
+    private final int latitudeCells;
+    private final int longitudeCells;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<LocalDate, Map<Long, List<Point>>> grids = new HashMap<>();
+    private final Map<Long, Point> points = new HashMap<>();
+
+    public SunriseSunsetSpatialIndex(SunriseSunsetRepository repository,
+                                     @Value("${sunrise-sunset.spatial.cell-degrees:0.1}") double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("cell-degrees must be in (0, 90]");
+        }
+        this.repository = repository;
+        this.cellDegrees = cellDegrees;
+        this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<SunriseSunsetKeyView> rows = repository.findAllKeyViews();
+        lock.writeLock().lock();
+        try {
+            grids.clear();
+            points.clear();
+            for (SunriseSunsetKeyView row : rows) {
+                put(new Point(row.id(), row.latitude(), row.longitude(), row.date()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Spatial index loaded with {} sunrise/sunset records", rows.size());
+    }
+
+    /**
+     * Adds the records, or moves them if their coordinates or date changed.
+     */
+    public void index(Collection<SunriseSunset> sunriseSunsets) {
+        List<Point> changed = sunriseSunsets.stream()
+                .map(s -> new Point(s.getId(), s.getLatitude(), s.getLongitude(), s.getDate()))
+                .toList();
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                changed.forEach(this::put);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Collection<Long> ids) {
+        List<Long> removed = List.copyOf(ids);
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removed.forEach(this::removePoint);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Records of {@code date} within {@code radiusKm} of the point, nearest first.
+     */
+    public List<Match> within(LocalDate date, double latitude, double longitude, double radiusKm) {
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, List<Point>> grid = grids.get(date);
+            if (grid == null) {
+                return matches;
+            }
+            double latitudeSpan = radiusKm / KM_PER_DEGREE;
+            int fromRow = Math.max(0, row(latitude - latitudeSpan));
+            int toRow = Math.min(latitudeCells - 1, row(latitude + latitudeSpan));
+            double maxAbsLatitude = Math.min(90, Math.abs(latitude) + latitudeSpan);
+            double longitudeSpan = maxAbsLatitude >= 89.9
+                    ? 180
+                    : latitudeSpan / Math.cos(Math.toRadians(maxAbsLatitude));
+            int fromColumn = column(longitude - longitudeSpan);
+            int columns = longitudeSpan >= 180
+                    ? longitudeCells
+                    : Math.min(longitudeCells, column(longitude + longitudeSpan) - fromColumn + 1);
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int i = 0; i < columns; i++) {
+                    List<Point> cell = grid.get(cellKey(row, Math.floorMod(fromColumn + i, longitudeCells)));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Point point : cell) {
+                        double distance = distanceKm(latitude, longitude, point.latitude(), point.longitude());
+                        if (distance <= radiusKm) {
+                            matches.add(new Match(point.id(), point.latitude(), point.longitude(), distance));
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingDouble(Match::distanceKm));
+        return matches;
+    }
+
+    public Optional<Match> nearest(LocalDate date, double latitude, double longitude, double maxKm) {
+        return within(date, latitude, longitude, maxKm).stream().findFirst();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.pow(Math.sin(dLatitude / 2), 2) + Math.cos(Math.toRadians(latitude1))
+                * Math.cos(Math.toRadians(latitude2)) * Math.pow(Math.sin(dLongitude / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private void put(Point point) {
+        removePoint(point.id());
+        points.put(point.id(), point);
+        grids.computeIfAbsent(point.date(), date -> new HashMap<>())
+                .computeIfAbsent(cellKey(point), key -> new ArrayList<>())
+                .add(point);
+    }
+
+    private void removePoint(Long id) {
+        Point previous = points.remove(id);
+        if (previous == null) {
+            return;
+        }
+        Map<Long, List<Point>> grid = grids.get(previous.date());
+        List<Point> cell = grid.get(cellKey(previous));
+        cell.remove(previous);
+        if (cell.isEmpty()) {
+            grid.remove(cellKey(previous));
+            if (grid.isEmpty()) {
+                grids.remove(previous.date());
+            }
+        }
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    private long cellKey(Point point) {
+        return cellKey(Math.min(latitudeCells - 1, row(point.latitude())),
+                Math.floorMod(column(point.longitude()), longitudeCells));
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * longitudeCells + column;
+    }
+}
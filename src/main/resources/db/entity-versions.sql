@@ -0,0 +1,12 @@
+-- Optimistic-lock version columns. Existing rows start at version 0; the default also covers rows written by
+-- the native sunrise/sunset upsert, which does not set the column.
+DO $$
+DECLARE
+    table_name text;
+BEGIN
+    FOREACH table_name IN ARRAY ARRAY['location', 'sunrise_sunset'] LOOP
+        IF to_regclass(table_name) IS NOT NULL THEN
+            EXECUTE format('ALTER TABLE %I ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0', table_name);
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,18 @@
+-- Sequences behind the pooled id generators (allocation size 50). Hibernate reads a sequence value as the
+-- top of a block of 50 ids, so on a table that already has rows the sequence is positioned at max(id) + 50:
+-- new ids then continue right after the ones handed out by the former identity columns.
+DO $$
+DECLARE
+    table_name text;
+    max_id bigint;
+BEGIN
+    FOREACH table_name IN ARRAY ARRAY['location', 'sunrise_sunset'] LOOP
+        IF to_regclass(table_name || '_seq') IS NULL THEN
+            EXECUTE format('CREATE SEQUENCE %I START WITH 50 INCREMENT BY 50', table_name || '_seq');
+            IF to_regclass(table_name) IS NOT NULL THEN
+                EXECUTE format('SELECT coalesce(max(id), 0) FROM %I', table_name) INTO max_id;
+                PERFORM setval(table_name || '_seq', max_id + 50, false);
+            END IF;
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,37 @@
+-- Converts the free-form text columns of sunrise_sunset to DATE/TIME in place and indexes the date.
+-- Runs on every start: it is a no-op once the columns are typed, and before Hibernate has created the table.
+DO $$
+DECLARE
+    time_column text;
+BEGIN
+    IF to_regclass('sunrise_sunset') IS NULL THEN
+        RETURN;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'sunrise_sunset' AND column_name = 'date' AND data_type <> 'date') THEN
+        -- Fetches without a date stored the literal "today". The fetch day itself was never recorded,
+        -- so the migration day (UTC) is the closest value available.
+        UPDATE sunrise_sunset
+        SET date = to_char(now() AT TIME ZONE 'UTC', 'YYYY-MM-DD')
+        WHERE lower(trim(date)) = 'today';
+        IF EXISTS (SELECT 1 FROM sunrise_sunset WHERE trim(date) !~ '^\d{4}-\d{2}-\d{2}$') THEN
+            RAISE EXCEPTION 'sunrise_sunset.date contains values that are neither ISO dates nor "today"';
+        END IF;
+        ALTER TABLE sunrise_sunset ALTER COLUMN date TYPE date USING trim(date)::date;
+    END IF;
+
+    FOREACH time_column IN ARRAY ARRAY['sunrise', 'sunset'] LOOP
+        IF EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_name = 'sunrise_sunset' AND column_name = time_column
+                     AND data_type <> 'time without time zone') THEN
+            -- "7:27:02 AM" from the API, ISO-8601 timestamps (formatted=0) or plain "HH:MM[:SS]"
+            EXECUTE format('ALTER TABLE sunrise_sunset ALTER COLUMN %1$I TYPE time USING CASE '
+                    || 'WHEN trim(%1$I) ~* ''(AM|PM)$'' THEN to_timestamp(trim(%1$I), ''HH12:MI:SS AM'')::time '
+                    || 'WHEN trim(%1$I) ~ ''T'' THEN (trim(%1$I)::timestamptz AT TIME ZONE ''UTC'')::time '
+                    || 'ELSE trim(%1$I)::time END', time_column);
+        END IF;
+    END LOOP;
+
+    CREATE INDEX IF NOT EXISTS idx_sunrise_sunset_date ON sunrise_sunset (date);
+END $$;
@@ -0,0 +1,69 @@
+package com.example.lab6.aspect;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogPayloadTest {
+
+    @Test
+    void testToString_RendersArgumentsAndResponseBody() {
+        assertEquals("[1, abc, null]", LogPayload.of(new Object[]{1, "abc", null}, 512).toString());
+        assertEquals("ResponseEntity[200, ArrayList(size=2)[a, b]]",
+                LogPayload.of(ResponseEntity.ok(new ArrayList<>(List.of("a", "b"))), 512).toString());
+        assertEquals("HashMap(size=1){k=v}", LogPayload.of(new HashMap<>(Map.of("k", "v")), 512).toString());
+    }
+
+    @Test
+    void testToString_TruncatesLongValues() {
+        String rendered = LogPayload.of("x".repeat(1000), 10).toString();
+
+        assertEquals("x".repeat(10) + "...(truncated)", rendered);
+    }
+
+    @Test
+    void testToString_StopsWalkingCollectionOnceBudgetIsSpent() {
+        AtomicInteger rendered = new AtomicInteger();
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            items.add(new Object() {
+                @Override
+                public String toString() {
+                    rendered.incrementAndGet();
+                    return "item";
+                }
+            });
+        }
+
+        String text = LogPayload.of(items, 50).toString();
+
+        assertTrue(text.startsWith("ArrayList(size=10000)[item, item"));
+        assertTrue(text.endsWith("...(truncated)"));
+        assertTrue(rendered.get() < 20, "rendered " + rendered.get() + " elements");
+    }
+
+    @Test
+    void testToString_NonPositiveLimitDisablesTruncation() {
+        assertEquals(1000, LogPayload.of("x".repeat(1000), 0).toString().length());
+    }
+
+    @Test
+    void testParseSampleRates_ParsesOverrides() {
+        Map<String, Double> rates = LoggingAspect.parseSampleRates(
+                " LocationController.getAll=0.001 , SunriseSunsetController.getAll=0.5,");
+
+        assertEquals(2, rates.size());
+        assertEquals(0.001, rates.get("LocationController.getAll"));
+        assertEquals(0.5, rates.get("SunriseSunsetController.getAll"));
+        assertThrows(IllegalArgumentException.class, () -> LoggingAspect.parseSampleRates("broken"));
+    }
+}
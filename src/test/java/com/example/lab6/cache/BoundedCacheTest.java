@@ -0,0 +1,105 @@
+package com.example.lab6.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void testGet_HitAndMiss() {
+        BoundedCache<String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1), clock::get);
+        cache.put("a", "1");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void testPut_EvictsOldestWhenFull() {
+        BoundedCache<String> cache = new BoundedCache<>("test", 2, Duration.ofMinutes(1), clock::get);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void testGet_ExpiresAfterTtl() {
+        BoundedCache<String> cache = new BoundedCache<>("test", 10, Duration.ofSeconds(5), clock::get);
+        cache.put("a", "1");
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().expirations());
+    }
+
+    @Test
+    void testInvalidate_RemovesOnlyGivenKey() {
+        BoundedCache<String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1), clock::get);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+    }
+
+    @Test
+    void testInvalidateTag_RemovesOnlyTaggedEntries() {
+        BoundedCache<String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1), clock::get);
+        cache.put("all", "1,2", List.of("all", "id:1", "id:2"));
+        cache.put("one", "1", List.of("id:1"));
+        cache.put("two", "2", List.of("id:2"));
+        cache.invalidateTag("id:1");
+
+        assertNull(cache.get("all"));
+        assertNull(cache.get("one"));
+        assertEquals("2", cache.get("two"));
+    }
+
+    @Test
+    void testInvalidateTag_RacingPutLeavesNoUnlinkedEntry() throws Exception {
+        BoundedCache<String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1), clock::get);
+        // Many tags keep put busy linking long enough for the invalidations to land in the middle of it
+        List<String> tags = IntStream.rangeClosed(1, 1000).mapToObj(id -> "id:" + id).toList();
+        ExecutorService invalidator = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < 1000; round++) {
+                AtomicBoolean stored = new AtomicBoolean();
+                Future<?> invalidations = invalidator.submit(() -> {
+                    while (!stored.get()) {
+                        cache.invalidateTag("id:1");
+                    }
+                });
+                cache.put("one", "1", tags);
+                stored.set(true);
+                invalidations.get();
+
+                // Whichever ran first, an entry that is still cached must be reachable through the tag
+                cache.invalidateTag("id:1");
+                assertNull(cache.get("one"), "entry survived unlinked from its tag in round " + round);
+            }
+        } finally {
+            invalidator.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.lab6.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedDataSourceTest {
+
+    private final AtomicInteger open = new AtomicInteger();
+    private final BoundedDataSource dataSource =
+            new BoundedDataSource(pool(), 2, Duration.ofMillis(50));
+
+    @Test
+    void testGetConnection_TimesOutWhenAllPermitsAreTaken() throws SQLException {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        assertEquals(2, dataSource.inUse());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(2, open.get());
+
+        first.close();
+        try (Connection third = dataSource.getConnection()) {
+            assertEquals(2, dataSource.inUse());
+        }
+        second.close();
+        assertEquals(0, dataSource.inUse());
+        assertEquals(0, open.get());
+    }
+
+    @Test
+    void testClose_ReleasesThePermitOnlyOnce() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertEquals(0, dataSource.inUse());
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertSame(first, first.unwrap(Connection.class));
+        assertTrue(first.equals(first));
+    }
+
+    @Test
+    void testGetConnection_ReleasesThePermitWhenThePoolFails() {
+        BoundedDataSource failing = new BoundedDataSource((DataSource) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    throw new SQLException("pool closed");
+                }), 1, Duration.ofMillis(50));
+
+        assertThrows(SQLException.class, failing::getConnection);
+        assertEquals(0, failing.inUse());
+    }
+
+    private DataSource pool() {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (!"getConnection".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    open.incrementAndGet();
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                            (connection, call, callArgs) -> {
+                                if ("close".equals(call.getName())) {
+                                    open.decrementAndGet();
+                                }
+                                return null;
+                            });
+                });
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.lab6.controller;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CachedBody;
+import com.example.lab6.service.ChangeStamps;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseBodiesTest {
+
+    private final BoundedCache<CachedBody> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1));
+    private final ChangeStamps changeStamps = new ChangeStamps();
+    private final ResponseBodies responseBodies = new ResponseBodies(cache, changeStamps, new ObjectMapper());
+
+    @Test
+    void testList_ServesRepeatedRequestsFromCachedBytes() {
+        AtomicInteger loads = new AtomicInteger();
+
+        ResponseEntity<byte[]> first = responseBodies.list("key", request(null), () -> {
+            loads.incrementAndGet();
+            return List.of("a", "b");
+        }, values -> List.of("tag"));
+        ResponseEntity<byte[]> second = responseBodies.list("key", request(null), List::of, values -> List.of());
+
+        assertEquals(1, loads.get());
+        assertEquals("[\"a\",\"b\"]", new String(second.getBody(), StandardCharsets.UTF_8));
+        assertEquals(first.getBody(), second.getBody());
+
+        cache.invalidateTag("tag");
+
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void testList_GzipsForClientsThatAcceptIt() throws IOException {
+        ResponseEntity<byte[]> response = responseBodies.list("key", request("br, gzip"), () -> List.of("a"),
+                values -> List.of());
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertEquals("[\"a\"]", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testOne_DropsBodyLoadedWhileAWriteCommittedAndDoesNotCacheMisses() {
+        responseBodies.one("changed", request(null), () -> {
+            changeStamps.changed(true, false);
+            return Optional.of("stale");
+        }, List.of());
+
+        ResponseEntity<byte[]> missing = responseBodies.one("missing", request(null), Optional::empty, List.of());
+
+        assertNull(cache.get("changed"));
+        assertEquals(404, missing.getStatusCode().value());
+        assertNull(cache.get("missing"));
+    }
+
+    @Test
+    void testAcceptsGzip_HonoursQualityAndWildcard() {
+        assertTrue(ResponseBodies.acceptsGzip("gzip, deflate"));
+        assertTrue(ResponseBodies.acceptsGzip("*"));
+        assertFalse(ResponseBodies.acceptsGzip("gzip;q=0, *"));
+        assertFalse(ResponseBodies.acceptsGzip("deflate"));
+        assertFalse(ResponseBodies.acceptsGzip(null));
+    }
+
+    private static WebRequest request(String acceptEncoding) {
+        return (WebRequest) Proxy.newProxyInstance(ResponseBodiesTest.class.getClassLoader(),
+                new Class<?>[]{WebRequest.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getHeader") && HttpHeaders.ACCEPT_ENCODING.equals(args[0])) {
+                        return acceptEncoding;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.lab6.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestMetricsTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private final RequestMetrics metrics = new RequestMetrics(clock::get);
+
+    @Test
+    void testRecord_CountsPerMethodAndErrors() {
+        metrics.record("LocationService.getAllLocations", 1_000_000, false);
+        metrics.record("LocationService.getAllLocations", 2_000_000, true);
+        metrics.record("SunriseSunsetService.getAllSunriseSunsets", 1_000_000, false);
+
+        List<MethodMetricsSnapshot> snapshot = metrics.snapshot();
+
+        assertEquals(2, snapshot.size());
+        assertEquals("LocationService.getAllLocations", snapshot.get(0).method());
+        assertEquals(2, snapshot.get(0).count());
+        assertEquals(1, snapshot.get(0).errors());
+        assertEquals(1, snapshot.get(1).count());
+    }
+
+    @Test
+    void testPercentiles_WithinBucketResolution() {
+        for (int i = 1; i <= 100; i++) {
+            metrics.record("m", i * 1_000_000L, false);
+        }
+
+        MethodMetricsSnapshot snapshot = metrics.snapshot().get(0);
+
+        assertInRange(50, snapshot.p50Ms());
+        assertInRange(95, snapshot.p95Ms());
+        assertInRange(99, snapshot.p99Ms());
+        assertEquals(100, snapshot.maxMs(), 1e-9);
+        assertEquals(50.5, snapshot.meanMs(), 1e-9);
+    }
+
+    @Test
+    void testRates_OnlyCountCompletedSecondsInWindow() {
+        for (int second = 0; second < 120; second++) {
+            metrics.record("m", 1_000, false);
+            metrics.record("m", 1_000, false);
+            clock.incrementAndGet();
+        }
+        metrics.record("m", 1_000, false);
+
+        MethodMetricsSnapshot snapshot = metrics.snapshot().get(0);
+
+        assertEquals(2.0, snapshot.ratePerSecond1m(), 1e-9);
+        assertEquals(240.0 / 300, snapshot.ratePerSecond5m(), 1e-9);
+    }
+
+    @Test
+    void testRates_OldBucketsAreRecycled() {
+        metrics.record("m", 1_000, false);
+        clock.addAndGet(600);
+        metrics.record("m", 1_000, false);
+        clock.incrementAndGet();
+
+        assertEquals(1.0 / 300, metrics.snapshot().get(0).ratePerSecond5m(), 1e-9);
+    }
+
+    @Test
+    void testRecord_ConcurrentUpdatesAreNotLost() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    metrics.record("m", 1_000, false);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(80_000, metrics.snapshot().get(0).count());
+    }
+
+    private static void assertInRange(double expectedMs, double actualMs) {
+        assertTrue(actualMs >= expectedMs && actualMs <= expectedMs * 1.2,
+                "expected ~" + expectedMs + " ms but was " + actualMs);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.lab6.provider;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalSunriseSunsetProviderTest {
+
+    // Times from an independent solar-position calculation in the API's response format, not captured API
+    // responses. TODO: replace with responses recorded from api.sunrise-sunset.org (curl command in the fixture).
+    private static final String FIXTURES = "/fixtures/sunrise-sunset-reference.json";
+    private static final int TOLERANCE_SECONDS = 60;
+    private static final DateTimeFormatter API_TIME = DateTimeFormatter.ofPattern("h:mm:ss a", Locale.US);
+
+    private final LocalSunriseSunsetProvider provider = new LocalSunriseSunsetProvider();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFetch_MatchesIndependentReference() throws IOException {
+        JsonNode cases = readFixtures().get("cases");
+        assertTrue(cases.size() > 0);
+
+        for (JsonNode fixture : cases) {
+            String name = fixture.get("name").asText() + " " + fixture.get("date").asText();
+            JsonNode expected = fixture.get("response").get("results");
+
+            Map<String, Object> response = provider.fetch(
+                    fixture.get("lat").asDouble(), fixture.get("lng").asDouble(), fixture.get("date").asText());
+            assertEquals("OK", response.get("status"));
+            Map<String, Object> results = (Map<String, Object>) response.get("results");
+
+            Iterator<Map.Entry<String, JsonNode>> fields = expected.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String actual = (String) results.get(field.getKey());
+                assertNotNull(actual, name + ": missing " + field.getKey());
+                int diff = "day_length".equals(field.getKey())
+                        ? Math.abs(durationSeconds(actual) - durationSeconds(field.getValue().asText()))
+                        : timeDifference(actual, field.getValue().asText());
+                assertTrue(diff <= TOLERANCE_SECONDS,
+                        name + ": " + field.getKey() + " was " + actual + ", expected " + field.getValue().asText());
+            }
+        }
+    }
+
+    @Test
+    void testCalculate_PolarNightHasNoSunrise() {
+        SolarTimes times = SolarCalculator.calculate(78.22, 15.65, LocalDate.of(2025, 12, 21));
+
+        assertTrue(Double.isNaN(times.sunrise()));
+        assertTrue(Double.isNaN(times.sunset()));
+        assertEquals("12:00:01 AM", SolarTimes.formatTime(times.sunrise()));
+        assertEquals("0:00:00", SolarTimes.formatDuration(times.dayLength()));
+    }
+
+    @Test
+    void testCalculate_PolarDayLastsWholeDay() {
+        SolarTimes times = SolarCalculator.calculate(78.22, 15.65, LocalDate.of(2025, 6, 21));
+
+        assertTrue(Double.isNaN(times.sunrise()));
+        assertEquals("24:00:00", SolarTimes.formatDuration(times.dayLength()));
+    }
+
+    @Test
+    void testFetch_InvalidDate() {
+        assertThrows(IllegalArgumentException.class, () -> provider.fetch(54.3, 30.24, "yesterday-ish"));
+    }
+
+    private JsonNode readFixtures() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(FIXTURES)) {
+            assertNotNull(in, "Fixture not found: " + FIXTURES);
+            return new ObjectMapper().readTree(in);
+        }
+    }
+
+    private static int timeDifference(String actual, String expected) {
+        int diff = Math.abs(LocalTime.parse(actual, API_TIME).toSecondOfDay()
+                - LocalTime.parse(expected, API_TIME).toSecondOfDay());
+        return Math.min(diff, 86_400 - diff);
+    }
+
+    private static int durationSeconds(String duration) {
+        String[] parts = duration.split(":");
+        return Integer.parseInt(parts[0]) * 3600 + Integer.parseInt(parts[1]) * 60 + Integer.parseInt(parts[2]);
+    }
+}
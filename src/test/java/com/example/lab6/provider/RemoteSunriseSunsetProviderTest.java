@@ -0,0 +1,144 @@
+package com.example.lab6.provider;
+
+import com.example.lab6.exception.UpstreamUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the provider against a local stub of api.sunrise-sunset.org with one stalling and one healthy endpoint.
+ */
+class RemoteSunriseSunsetProviderTest {
+
+    private static final String OK_BODY = "{\"results\":{\"sunrise\":\"3:22:54 AM\",\"sunset\":\"4:42:37 PM\"},"
+            + "\"status\":\"OK\",\"tzid\":\"UTC\"}";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(1);
+
+    private final CountDownLatch upstreamStalled = new CountDownLatch(1);
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService httpExecutor;
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stall/json", exchange -> {
+            try {
+                upstreamStalled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, OK_BODY);
+        });
+        server.createContext("/fast/json", exchange -> respond(exchange, OK_BODY));
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        httpExecutor = Executors.newFixedThreadPool(2);
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(1))
+                .executor(httpExecutor)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstreamStalled.countDown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        httpExecutor.shutdownNow();
+    }
+
+    @Test
+    void testFetch_ParsesResponse() {
+        Map<String, Object> response = provider("/fast/json", 10).fetch(54.3, 30.24, "2025-04-04");
+
+        assertEquals("OK", response.get("status"));
+        assertEquals("3:22:54 AM", ((Map<?, ?>) response.get("results")).get("sunrise"));
+    }
+
+    @Test
+    void testFetchAsync_StalledUpstreamDoesNotHoldWorkerThreads() throws Exception {
+        RemoteSunriseSunsetProvider stalled = provider("/stall/json", 100);
+        RemoteSunriseSunsetProvider healthy = provider("/fast/json", 10);
+
+        // Two workers stand in for a small Tomcat pool; each hands off many requests to the stalled upstream.
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<CompletableFuture<Map<String, Object>>>> submitted = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                double latitude = 50 + i * 0.01;
+                submitted.add(workers.submit(() -> stalled.fetchAsync(latitude, 30.24, "2025-04-04")));
+            }
+            List<CompletableFuture<Map<String, Object>>> pending = new ArrayList<>();
+            for (Future<CompletableFuture<Map<String, Object>>> future : submitted) {
+                pending.add(future.get(1, TimeUnit.SECONDS));
+            }
+
+            // The workers are free again while every stalled call is still outstanding.
+            Map<String, Object> response = workers.submit(() -> healthy.fetch(54.3, 30.24, "2025-04-04"))
+                    .get(2, TimeUnit.SECONDS);
+            assertEquals("OK", response.get("status"));
+            assertTrue(pending.stream().noneMatch(CompletableFuture::isDone));
+
+            for (CompletableFuture<Map<String, Object>> future : pending) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof UpstreamUnavailableException);
+            }
+            assertEquals(100, stalled.availablePermits());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFetchAsync_RejectsWhenConcurrencyLimitReached() {
+        RemoteSunriseSunsetProvider stalled = provider("/stall/json", 1);
+
+        CompletableFuture<Map<String, Object>> first = stalled.fetchAsync(54.3, 30.24, "2025-04-04");
+        CompletableFuture<Map<String, Object>> second = stalled.fetchAsync(54.3, 30.24, "2025-04-05");
+
+        assertFalse(first.isDone());
+        assertTrue(second.isCompletedExceptionally());
+        assertThrows(UpstreamUnavailableException.class, () -> stalled.fetch(54.3, 30.24, "2025-04-06"));
+    }
+
+    private RemoteSunriseSunsetProvider provider(String path, int maxConcurrentRequests) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + path;
+        return new RemoteSunriseSunsetProvider(httpClient, new ObjectMapper(), url, REQUEST_TIMEOUT,
+                maxConcurrentRequests);
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.lab6.service;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CacheTags;
+import com.example.lab6.cache.CachedBody;
+import com.example.lab6.dto.LocationView;
+import com.example.lab6.dto.SunriseSunsetView;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CacheInvalidatorTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 4, 4);
+
+    private final BoundedCache<List<Location>> locationCache = cache();
+    private final BoundedCache<List<SunriseSunset>> sunriseSunsetCache = cache();
+    private final BoundedCache<List<LocationView>> locationViewCache = cache();
+    private final BoundedCache<List<SunriseSunsetView>> sunriseSunsetViewCache = cache();
+    private final BoundedCache<CachedBody> responseBodyCache = cache();
+    private final CacheInvalidator invalidator = new CacheInvalidator(locationCache, sunriseSunsetCache,
+            locationViewCache, sunriseSunsetViewCache, responseBodyCache, new ChangeStamps());
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testSunriseSunsetChanged_EvictsEntriesStoredBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        invalidator.sunriseSunsetChanged(1L, List.of(DATE), List.of(location(2L)));
+
+        // A reader outside the transaction still sees the old rows and caches them
+        sunriseSunsetCache.put("sunrise_sunset_date_" + DATE, List.of(), List.of(CacheTags.date(DATE)));
+        sunriseSunsetViewCache.put("sunrise_sunset_page_0_100", List.of(),
+                List.of(CacheTags.sunriseSunset(1L)));
+        locationCache.put("location_2", List.of(location(2L)), List.of(CacheTags.location(2L)));
+        assertNotNull(sunriseSunsetCache.get("sunrise_sunset_date_" + DATE));
+
+        commit();
+
+        assertNull(sunriseSunsetCache.get("sunrise_sunset_date_" + DATE));
+        assertNull(sunriseSunsetViewCache.get("sunrise_sunset_page_0_100"));
+        assertNull(locationCache.get("location_2"));
+    }
+
+    @Test
+    void testLocationChanged_EvictsImmediatelyOutsideATransaction() {
+        locationViewCache.put("locations_page_0_100", List.of(), List.of(CacheTags.location(1L)));
+
+        invalidator.locationChanged(1L, List.of());
+
+        assertNull(locationViewCache.get("locations_page_0_100"));
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static Location location(Long id) {
+        Location location = new Location();
+        location.setId(id);
+        return location;
+    }
+
+    private static <V> BoundedCache<V> cache() {
+        return new BoundedCache<>("test", 100, Duration.ofMinutes(10));
+    }
+}
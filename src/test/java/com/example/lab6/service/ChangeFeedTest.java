@@ -0,0 +1,84 @@
+package com.example.lab6.service;
+
+import com.example.lab6.dto.ChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeFeedTest {
+
+    private static final Duration NO_WAIT = Duration.ZERO;
+
+    private final ChangeFeed feed = new ChangeFeed(4, 2, 10);
+
+    @Test
+    void testSubscribe_ResumesAfterLastEventId() throws InterruptedException {
+        ChangeFeed.Subscription first = feed.subscribe(null, null).orElseThrow();
+        feed.publish(ChangeEvent.LOCATION, ChangeEvent.Type.CREATED, List.of(1L));
+        ChangeEvent seen = first.next(NO_WAIT);
+        feed.publish(ChangeEvent.LOCATION, ChangeEvent.Type.UPDATED, List.of(1L));
+        feed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.DELETED, List.of(7L, 8L));
+
+        ChangeFeed.Subscription resumed = feed.subscribe(seen.id(), null).orElseThrow();
+
+        assertFalse(resumed.reset());
+        assertEquals(List.of(ChangeEvent.Type.UPDATED, ChangeEvent.Type.DELETED),
+                resumed.backlog().stream().map(ChangeEvent::type).toList());
+        assertEquals(List.of(7L, 8L), resumed.backlog().get(1).ids());
+        assertNull(resumed.next(NO_WAIT));
+        assertTrue(feed.subscribe(null, null).orElseThrow().backlog().isEmpty());
+    }
+
+    @Test
+    void testSubscribe_ResetsWhenEventsAreNoLongerBuffered() throws InterruptedException {
+        ChangeFeed.Subscription first = feed.subscribe(null, ChangeEvent.LOCATION).orElseThrow();
+        feed.publish(ChangeEvent.LOCATION, ChangeEvent.Type.CREATED, List.of(1L));
+        String oldest = first.next(NO_WAIT).id();
+        for (long id = 2; id <= 6; id++) {
+            feed.publish(ChangeEvent.SUNRISE_SUNSET, ChangeEvent.Type.UPSERTED, List.of(id));
+        }
+
+        ChangeFeed.Subscription evicted = feed.subscribe(oldest, null).orElseThrow();
+        ChangeFeed.Subscription otherRun = feed.subscribe("previous-run-3", null).orElseThrow();
+
+        assertTrue(evicted.reset());
+        assertTrue(evicted.backlog().isEmpty());
+        assertTrue(evicted.startId().endsWith("-6"));
+        assertTrue(otherRun.reset());
+        assertNull(first.next(NO_WAIT));
+    }
+
+    @Test
+    void testPublish_DropsSubscriberWhoseQueueIsFull() throws InterruptedException {
+        ChangeFeed.Subscription slow = feed.subscribe(null, null).orElseThrow();
+        ChangeFeed.Subscription fast = feed.subscribe(null, null).orElseThrow();
+
+        for (long id = 1; id <= 3; id++) {
+            feed.publish(ChangeEvent.LOCATION, ChangeEvent.Type.CREATED, List.of(id));
+            if (fast.next(NO_WAIT) == null) {
+                throw new AssertionError("event " + id + " was not delivered");
+            }
+        }
+
+        assertTrue(slow.dropped());
+        assertFalse(slow.isOpen());
+        assertTrue(fast.isOpen());
+        assertEquals(1, feed.subscribers());
+    }
+
+    @Test
+    void testSubscribe_RejectsSubscribersOverTheLimit() {
+        ChangeFeed small = new ChangeFeed(4, 2, 1);
+        ChangeFeed.Subscription subscription = small.subscribe(null, null).orElseThrow();
+
+        assertTrue(small.subscribe(null, null).isEmpty());
+        subscription.close();
+        assertTrue(small.subscribe(null, null).isPresent());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.lab6.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ChangeStampsTest {
+
+    private final ChangeStamps stamps = new ChangeStamps();
+
+    @Test
+    void testChanged_BumpsOnlyTheChangedCollections() {
+        String locations = stamps.locations();
+        String sunriseSunsets = stamps.sunriseSunsets();
+        String collections = stamps.collections();
+
+        stamps.changed(true, false);
+
+        assertNotEquals(locations, stamps.locations());
+        assertEquals(sunriseSunsets, stamps.sunriseSunsets());
+        assertNotEquals(collections, stamps.collections());
+    }
+
+    @Test
+    void testChanged_NothingChangedKeepsTheStamps() {
+        String collections = stamps.collections();
+        long lastModified = stamps.lastModified();
+
+        stamps.changed(false, false);
+
+        assertEquals(collections, stamps.collections());
+        assertEquals(lastModified, stamps.lastModified());
+    }
+}
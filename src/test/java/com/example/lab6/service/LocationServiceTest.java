@@ -1,20 +1,33 @@
 package com.example.lab6.service;
 
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.cache.CacheTags;
+import com.example.lab6.dto.KeysetPage;
+import com.example.lab6.dto.LocationBulkResult;
+import com.example.lab6.dto.LocationView;
+import com.example.lab6.dto.SunriseSunsetView;
 import com.example.lab6.model.Location;
 import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.IdLink;
 import com.example.lab6.repository.LocationRepository;
 import com.example.lab6.repository.SunriseSunsetRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,9 +40,20 @@ class LocationServiceTest {
     private SunriseSunsetRepository sunriseSunsetRepository;
 
     @Mock
-    private Map<String, List<Location>> locationCache;
+    private BoundedCache<List<Location>> locationCache;
+
+    @Mock
+    private BoundedCache<List<LocationView>> locationViewCache;
+
+    @Mock
+    private CacheInvalidator cacheInvalidator;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
-    @InjectMocks
     private LocationService locationService;
 
     private Location location;
@@ -38,6 +62,10 @@ class LocationServiceTest {
     @BeforeEach
     void setUp() {
         RequestCounter.reset(); // Сбрасываем счётчик перед каждым тестом
+        // Two BoundedCache mocks differ only in type arguments, so the service is not built by @InjectMocks
+        locationService = new LocationService(locationRepository, sunriseSunsetRepository, locationCache,
+                locationViewCache, cacheInvalidator, changeFeed, transactionTemplate, new Pages(2, 3));
+        ReflectionTestUtils.setField(locationService, "bulkChunkSize", 1000);
         location = new Location();
         location.setId(1L);
         location.setName("Test Location");
@@ -45,38 +73,65 @@ class LocationServiceTest {
 
         sunriseSunset = new SunriseSunset();
         sunriseSunset.setId(1L);
-        sunriseSunset.setDate("2025-04-04");
+        sunriseSunset.setDate(LocalDate.of(2025, 4, 4));
     }
 
     @Test
-    void testGetAll_FromCache() {
-        when(locationCache.containsKey("all_locations")).thenReturn(true);
-        when(locationCache.get("all_locations")).thenReturn(List.of(location));
+    void testGetPage_FromCache() {
+        LocationView view = new LocationView(1L, "Test Location", "Test Country", List.of(), null);
+        when(locationViewCache.get("locations_page_0_2")).thenReturn(List.of(view));
 
-        List<Location> result = locationService.getAll();
+        KeysetPage<LocationView> result = locationService.getPage(null, 2, false);
 
-        assertEquals(1, result.size());
-        assertEquals(location, result.get(0));
+        assertEquals(List.of(view), result.items());
+        assertNull(result.nextAfter());
         assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
-        verify(locationRepository, never()).findAll();
+        verify(locationRepository, never()).findViewsAfter(anyLong(), any());
     }
 
     @Test
-    void testGetAll_FromDatabase() {
-        when(locationCache.containsKey("all_locations")).thenReturn(false);
-        when(locationRepository.findAll()).thenReturn(List.of(location));
-
-        List<Location> result = locationService.getAll();
-
-        assertEquals(1, result.size());
-        assertEquals(location, result.get(0));
+    void testGetPage_FromDatabaseWithLinkIds() {
+        when(locationViewCache.get("locations_page_0_2")).thenReturn(null);
+        when(locationRepository.findViewsAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(
+                new LocationView(1L, "First", "Country"), new LocationView(2L, "Second", "Country")));
+        when(locationRepository.findSunriseSunsetLinks(List.of(1L, 2L)))
+                .thenReturn(List.of(new IdLink(1L, 10L), new IdLink(1L, 11L)));
+
+        KeysetPage<LocationView> result = locationService.getPage(null, 2, false);
+
+        assertEquals(List.of(new LocationView(1L, "First", "Country", List.of(10L, 11L), null),
+                new LocationView(2L, "Second", "Country", List.of(), null)), result.items());
+        assertEquals(2L, result.nextAfter());
         assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
-        verify(locationCache).put("all_locations", List.of(location));
+        // A full page cannot gain rows on insert, so it is not tagged with ALL_LOCATIONS
+        verify(locationViewCache).put("locations_page_0_2", result.items(),
+                List.of(CacheTags.location(1L), CacheTags.location(2L)));
+        verify(sunriseSunsetRepository, never()).findViewsByIdIn(any());
+        verify(locationRepository, never()).findAllByIdInOrderById(any());
+    }
+
+    @Test
+    void testGetPage_ExpandedLastPageIsEvictedOnInsertAndLimitIsCapped() {
+        SunriseSunsetView linked = new SunriseSunsetView(10L, 54.3, 30.24, LocalDate.of(2025, 4, 4),
+                LocalTime.of(3, 30), LocalTime.of(16, 45));
+        when(locationViewCache.get("locations_page_5_3_expanded")).thenReturn(null);
+        when(locationRepository.findViewsAfter(5L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(new LocationView(6L, "Sixth", "Country")));
+        when(locationRepository.findSunriseSunsetLinks(List.of(6L))).thenReturn(List.of(new IdLink(6L, 10L)));
+        when(sunriseSunsetRepository.findViewsByIdIn(Set.of(10L))).thenReturn(List.of(linked));
+
+        KeysetPage<LocationView> result = locationService.getPage(5L, 1000, true);
+
+        assertEquals(List.of(new LocationView(6L, "Sixth", "Country", List.of(10L), List.of(linked))),
+                result.items());
+        assertEquals(3, result.limit());
+        assertNull(result.nextAfter());
+        verify(locationViewCache).put("locations_page_5_3_expanded", result.items(),
+                List.of(CacheTags.ALL_LOCATIONS, CacheTags.location(6L)));
     }
 
     @Test
     void testGetById_FromCache() {
-        when(locationCache.containsKey("location_1")).thenReturn(true);
         when(locationCache.get("location_1")).thenReturn(List.of(location));
 
         Optional<Location> result = locationService.getById(1L);
@@ -89,7 +144,7 @@ class LocationServiceTest {
 
     @Test
     void testGetById_FromDatabase() {
-        when(locationCache.containsKey("location_1")).thenReturn(false);
+        when(locationCache.get("location_1")).thenReturn(null);
         when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
 
         Optional<Location> result = locationService.getById(1L);
@@ -97,12 +152,12 @@ class LocationServiceTest {
         assertTrue(result.isPresent());
         assertEquals(location, result.get());
         assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
-        verify(locationCache).put("location_1", List.of(location));
+        verify(locationCache).put("location_1", List.of(location), List.of(CacheTags.location(1L)));
     }
 
     @Test
     void testGetById_NotFound() {
-        when(locationCache.containsKey("location_1")).thenReturn(false);
+        when(locationCache.get("location_1")).thenReturn(null);
         when(locationRepository.findById(1L)).thenReturn(Optional.empty());
 
         Optional<Location> result = locationService.getById(1L);
@@ -121,7 +176,7 @@ class LocationServiceTest {
         assertEquals(location, result);
         assertEquals(1, location.getSunriseSunsets().size());
         assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
-        verify(locationCache).clear();
+        verify(cacheInvalidator).locationCreated(location.getSunriseSunsets());
     }
 
     @Test
@@ -141,7 +196,7 @@ class LocationServiceTest {
         assertEquals("Updated Country", result.get().getCountry());
         assertEquals(1, result.get().getSunriseSunsets().size());
         assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
-        verify(locationCache).clear();
+        verify(cacheInvalidator).locationChanged(1L, List.of(sunriseSunset));
     }
 
     @Test
@@ -163,7 +218,7 @@ class LocationServiceTest {
         assertTrue(result);
         assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
         verify(locationRepository).delete(location);
-        verify(locationCache).clear();
+        verify(cacheInvalidator).locationChanged(1L, List.of());
     }
 
     @Test
@@ -179,28 +234,28 @@ class LocationServiceTest {
 
     @Test
     void testGetLocationsByDate_FromCache() {
-        when(locationCache.containsKey("locations_date_2025-04-04")).thenReturn(true);
         when(locationCache.get("locations_date_2025-04-04")).thenReturn(List.of(location));
 
-        List<Location> result = locationService.getLocationsByDate("2025-04-04");
+        List<Location> result = locationService.getLocationsByDate(LocalDate.of(2025, 4, 4));
 
         assertEquals(1, result.size());
         assertEquals(location, result.get(0));
         assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
-        verify(locationRepository, never()).findLocationsBySunriseSunsetDate("2025-04-04");
+        verify(locationRepository, never()).findLocationsBySunriseSunsetDate(LocalDate.of(2025, 4, 4));
     }
 
     @Test
     void testGetLocationsByDate_FromDatabase() {
-        when(locationCache.containsKey("locations_date_2025-04-04")).thenReturn(false);
-        when(locationRepository.findLocationsBySunriseSunsetDate("2025-04-04")).thenReturn(List.of(location));
+        when(locationCache.get("locations_date_2025-04-04")).thenReturn(null);
+        when(locationRepository.findLocationsBySunriseSunsetDate(LocalDate.of(2025, 4, 4))).thenReturn(List.of(location));
 
-        List<Location> result = locationService.getLocationsByDate("2025-04-04");
+        List<Location> result = locationService.getLocationsByDate(LocalDate.of(2025, 4, 4));
 
         assertEquals(1, result.size());
         assertEquals(location, result.get(0));
         assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
-        verify(locationCache).put("locations_date_2025-04-04", List.of(location));
+        verify(locationCache).put("locations_date_2025-04-04", List.of(location),
+                List.of(CacheTags.date(LocalDate.of(2025, 4, 4)), CacheTags.location(1L)));
     }
 
     @Test
@@ -214,19 +269,80 @@ class LocationServiceTest {
         existingLocation.setName("Existing Location");
         existingLocation.setCountry("Existing Country");
 
-        when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
-        when(locationRepository.findById(0L)).thenReturn(Optional.empty());
+        runTransactionCallbacks();
+        when(locationRepository.findAllByIdInOrderById(Set.of(1L))).thenReturn(List.of(location));
         when(sunriseSunsetRepository.findAllById(List.of(1L))).thenReturn(List.of(sunriseSunset));
+        when(locationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Location> saved = invocation.getArgument(0);
+            saved.forEach(l -> l.setId(100L));
+            return saved;
+        });
+
+        List<LocationBulkResult> result =
+                locationService.bulkCreateOrUpdate(List.of(newLocation, existingLocation), List.of(1L));
+
+        assertEquals(List.of(LocationBulkResult.created(0, 100L), LocationBulkResult.updated(1, 1L)), result);
+        assertEquals("Existing Location", location.getName());
+        assertEquals("Existing Country", location.getCountry());
+        assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
+        verify(locationRepository, never()).findById(anyLong());
+        verify(sunriseSunsetRepository).addLocationLinks(1L, new LinkedHashSet<>(List.of(1L, 100L)));
+        verify(cacheInvalidator).locationsChanged(List.of(1L), List.of(sunriseSunset));
+        verify(cacheInvalidator).locationCreated(List.of(sunriseSunset));
+    }
+
+    @Test
+    void testBulkCreateOrUpdate_InvalidAndMissingItems() {
+        Location blank = new Location();
+        blank.setName(" ");
+        blank.setCountry("Country");
+
+        Location missing = new Location();
+        missing.setId(42L);
+        missing.setName("Missing");
+        missing.setCountry("Country");
+
+        runTransactionCallbacks();
+        when(locationRepository.findAllByIdInOrderById(Set.of(42L))).thenReturn(List.of());
         when(locationRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
-        List<Location> result = locationService.bulkCreateOrUpdate(List.of(newLocation, existingLocation), List.of(1L));
+        List<LocationBulkResult> result = locationService.bulkCreateOrUpdate(List.of(blank, missing), null);
 
-        assertEquals(2, result.size());
-        assertEquals("New Location", result.get(0).getName());
-        assertEquals("Existing Location", result.get(1).getName());
-        assertEquals(1, result.get(0).getSunriseSunsets().size());
-        assertEquals(1, result.get(1).getSunriseSunsets().size());
-        assertEquals(1, RequestCounter.getRequestCount()); // Проверяем, что счётчик увеличился
-        verify(locationCache).clear();
+        assertEquals(List.of(LocationBulkResult.failed(0, "Name is mandatory"),
+                LocationBulkResult.failed(1, "Location not found: 42")), result);
+        verify(sunriseSunsetRepository, never()).addLocationLinks(anyLong(), any());
+        verifyNoInteractions(cacheInvalidator);
+    }
+
+    @Test
+    void testBulkCreateOrUpdate_FailedChunkDoesNotStopLaterChunks() {
+        ReflectionTestUtils.setField(locationService, "bulkChunkSize", 1);
+        Location first = new Location();
+        first.setName("First");
+        first.setCountry("Country");
+        Location second = new Location();
+        second.setName("Second");
+        second.setCountry("Country");
+
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new IllegalStateException("constraint violation"))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(locationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Location> saved = invocation.getArgument(0);
+            saved.forEach(l -> l.setId(7L));
+            return saved;
+        });
+
+        List<LocationBulkResult> result = locationService.bulkCreateOrUpdate(List.of(first, second), null);
+
+        assertEquals(LocationBulkResult.Status.FAILED, result.get(0).status());
+        assertTrue(result.get(0).error().contains("constraint violation"));
+        assertEquals(LocationBulkResult.created(1, 7L), result.get(1));
+        verify(cacheInvalidator, times(1)).locationCreated(List.of());
+    }
+
+    private void runTransactionCallbacks() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
-}
\ No newline at end of file
+}
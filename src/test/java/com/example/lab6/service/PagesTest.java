@@ -0,0 +1,35 @@
+package com.example.lab6.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PagesTest {
+
+    private final Pages pages = new Pages(100, 500);
+
+    @Test
+    void testResolveLimit_MissingAndDefaultLimitShareAPage() {
+        assertEquals(100, pages.resolveLimit(null));
+        assertEquals(pages.resolveLimit(null), pages.resolveLimit(100));
+    }
+
+    @Test
+    void testResolveLimit_OversizedLimitsShareTheCappedPage() {
+        assertEquals(500, pages.resolveLimit(501));
+        assertEquals(pages.resolveLimit(500), pages.resolveLimit(100_000));
+        assertEquals(20, pages.resolveLimit(20));
+    }
+
+    @Test
+    void testResolveLimit_DefaultIsCappedToo() {
+        assertEquals(50, new Pages(100, 50).resolveLimit(null));
+    }
+
+    @Test
+    void testResolveLimit_RejectsNonPositive() {
+        assertThrows(IllegalArgumentException.class, () -> pages.resolveLimit(0));
+        assertThrows(IllegalArgumentException.class, () -> pages.resolveLimit(-1));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.lab6.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestPacerTest {
+
+    @Test
+    void testAcquire_SpacesCallsAtTheConfiguredRate() {
+        RequestPacer pacer = new RequestPacer(100);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            pacer.acquire();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 95, "11 calls at 100/s took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testAcquire_DoesNotWaitWhenDisabled() {
+        RequestPacer pacer = new RequestPacer(0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            pacer.acquire();
+        }
+
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 50);
+    }
+}
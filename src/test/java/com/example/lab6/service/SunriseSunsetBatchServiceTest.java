@@ -0,0 +1,249 @@
+package com.example.lab6.service;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.dto.BatchFetchRequest;
+import com.example.lab6.dto.BatchFetchResult;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.provider.SunriseSunsetProvider;
+import com.example.lab6.repository.LocationRepository;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SunriseSunsetBatchServiceTest {
+
+    private static final Map<String, Object> OK_RESPONSE =
+            Map.of("status", "OK", "results", Map.of("sunrise", "4:00:00 AM", "sunset", "6:00:00 PM"));
+
+    private final AtomicInteger providerCalls = new AtomicInteger();
+    private final List<List<SunriseSunset>> upserts = new ArrayList<>();
+    private final ExecutorService upstream = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        upstream.shutdownNow();
+    }
+
+    @Test
+    void testValidate_RejectsUnparseableDate() {
+        assertEquals("Date must be in yyyy-MM-dd format",
+                SunriseSunsetBatchService.validate(new BatchFetchRequest(54.3, 30.24, "2025-13-01", List.of())));
+        assertEquals("Date must be in yyyy-MM-dd format",
+                SunriseSunsetBatchService.validate(new BatchFetchRequest(54.3, 30.24, "04.04.2025", null)));
+    }
+
+    @Test
+    void testValidate_AcceptsIsoDateAndToday() {
+        assertNull(SunriseSunsetBatchService.validate(new BatchFetchRequest(54.3, 30.24, "2025-04-04", null)));
+        assertNull(SunriseSunsetBatchService.validate(new BatchFetchRequest(54.3, 30.24, "today", null)));
+        assertNull(SunriseSunsetBatchService.validate(new BatchFetchRequest(54.3, 30.24, null, null)));
+    }
+
+    @Test
+    void testFetchBatch_RepeatedNaturalKeyIsFetchedAndWrittenOnce() {
+        SunriseSunsetBatchService service = service(immediateProvider(), 4);
+
+        List<BatchFetchResult> results = service.fetchBatch(List.of(
+                new BatchFetchRequest(54.3, 30.24, "2025-04-04", List.of(1L)),
+                new BatchFetchRequest(54.3, 30.24, "2025-04-05", null),
+                new BatchFetchRequest(54.30001, 30.24, "2025-04-04", List.of(2L))));
+
+        assertEquals(2, providerCalls.get());
+        assertEquals(1, upserts.size());
+        assertEquals(2, upserts.get(0).size());
+        assertEquals(Set.of(1L, 2L), upserts.get(0).get(0).getLocations().stream().map(Location::getId)
+                .collect(Collectors.toSet()));
+        assertEquals(List.of(BatchFetchResult.Status.OK, BatchFetchResult.Status.OK, BatchFetchResult.Status.OK),
+                results.stream().map(BatchFetchResult::status).toList());
+        assertEquals(results.get(0).id(), results.get(2).id());
+        assertEquals(2, results.get(2).index());
+    }
+
+    @Test
+    void testFetchBatch_ProviderCallsAreBoundedByParallelism() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        SunriseSunsetProvider provider = new SunriseSunsetProvider() {
+            @Override
+            public Map<String, Object> fetch(double latitude, double longitude, String date) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Map<String, Object>> fetchAsync(double latitude, double longitude,
+                                                                     String date) {
+                providerCalls.incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return CompletableFuture.supplyAsync(() -> {
+                    sleep(5);
+                    inFlight.decrementAndGet();
+                    return OK_RESPONSE;
+                }, upstream);
+            }
+        };
+        SunriseSunsetBatchService service = service(provider, 3);
+        List<BatchFetchRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            requests.add(new BatchFetchRequest(50.0 + i, 30.24, "2025-04-04", null));
+        }
+
+        List<BatchFetchResult> results = service.fetchBatch(requests);
+
+        assertEquals(30, providerCalls.get());
+        assertTrue(maxInFlight.get() <= 3, "max in flight " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "calls never overlapped");
+        assertTrue(results.stream().allMatch(result -> result.status() == BatchFetchResult.Status.OK));
+    }
+
+    @Test
+    void testFetchBatch_OneWriteWithPerItemStatus() {
+        SunriseSunsetProvider provider = (latitude, longitude, date) -> {
+            providerCalls.incrementAndGet();
+            if (latitude == 10) {
+                throw new IllegalStateException("upstream down");
+            }
+            return latitude == 20 ? Map.of("status", "INVALID_REQUEST") : OK_RESPONSE;
+        };
+        SunriseSunsetBatchService service = service(provider, 4);
+
+        List<BatchFetchResult> results = service.fetchBatch(List.of(
+                new BatchFetchRequest(54.3, 30.24, "2025-04-04", List.of(1L)),
+                new BatchFetchRequest(10.0, 30.24, "2025-04-04", null),
+                new BatchFetchRequest(20.0, 30.24, "2025-04-04", null),
+                new BatchFetchRequest(91.0, 30.24, "2025-04-04", null),
+                new BatchFetchRequest(53.9, 27.5667, "2025-04-04", null),
+                new BatchFetchRequest(10.0, 30.24, "2025-04-04", null)));
+
+        assertEquals(4, providerCalls.get());
+        assertEquals(1, upserts.size());
+        assertEquals(2, upserts.get(0).size());
+        assertEquals(List.of(BatchFetchResult.Status.OK, BatchFetchResult.Status.FAILED,
+                        BatchFetchResult.Status.FAILED, BatchFetchResult.Status.INVALID, BatchFetchResult.Status.OK,
+                        BatchFetchResult.Status.FAILED),
+                results.stream().map(BatchFetchResult::status).toList());
+        assertEquals(LocalTime.of(4, 0), results.get(0).sunrise());
+        assertTrue(results.get(1).error().contains("upstream down"), results.get(1).error());
+        assertEquals("Provider returned status INVALID_REQUEST", results.get(2).error());
+        assertEquals("Latitude must be between -90 and 90", results.get(3).error());
+        assertEquals(results.get(1).error(), results.get(5).error());
+        assertEquals(5, results.get(5).index());
+    }
+
+    @Test
+    void testFetchBatch_NothingIsWrittenWhenEveryFetchFails() {
+        SunriseSunsetBatchService service = service((latitude, longitude, date) -> {
+            throw new IllegalStateException("upstream down");
+        }, 4);
+
+        List<BatchFetchResult> results = service.fetchBatch(List.of(
+                new BatchFetchRequest(54.3, 30.24, "2025-04-04", null),
+                new BatchFetchRequest(53.9, 27.5667, "2025-04-04", null)));
+
+        assertTrue(upserts.stream().allMatch(List::isEmpty));
+        assertTrue(results.stream().allMatch(result -> result.status() == BatchFetchResult.Status.FAILED));
+    }
+
+    @Test
+    void testFetchBatch_RejectsOversizedBatch() {
+        SunriseSunsetBatchService service = service(immediateProvider(), 4);
+        ReflectionTestUtils.setField(service, "maxItems", 1);
+
+        assertThrows(IllegalArgumentException.class, () -> service.fetchBatch(List.of(
+                new BatchFetchRequest(54.3, 30.24, "2025-04-04", null),
+                new BatchFetchRequest(53.9, 27.5667, "2025-04-04", null))));
+        assertEquals(0, providerCalls.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SunriseSunsetProvider immediateProvider() {
+        return (latitude, longitude, date) -> {
+            providerCalls.incrementAndGet();
+            return OK_RESPONSE;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private SunriseSunsetBatchService service(SunriseSunsetProvider provider, int parallelism) {
+        SunriseSunsetRepository repository = (SunriseSunsetRepository) Proxy.newProxyInstance(
+                SunriseSunsetRepository.class.getClassLoader(), new Class<?>[]{SunriseSunsetRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("upsertAll")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<SunriseSunset> batch = (List<SunriseSunset>) args[0];
+                    Set<String> keys = new HashSet<>();
+                    for (SunriseSunset sunriseSunset : batch) {
+                        if (!keys.add(sunriseSunset.getLatitudeKey() + "," + sunriseSunset.getLongitudeKey()
+                                + "," + sunriseSunset.getDate())) {
+                            throw new IllegalStateException("ON CONFLICT DO UPDATE cannot affect row a second time");
+                        }
+                        sunriseSunset.setId(100L + keys.size());
+                    }
+                    upserts.add(List.copyOf(batch));
+                    return batch;
+                });
+        LocationRepository locationRepository = (LocationRepository) Proxy.newProxyInstance(
+                LocationRepository.class.getClassLoader(), new Class<?>[]{LocationRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findAllById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<Location> found = new ArrayList<>();
+                    for (Long id : (Collection<Long>) args[0]) {
+                        Location location = new Location();
+                        location.setId(id);
+                        found.add(location);
+                    }
+                    return found;
+                });
+        PlatformTransactionManager transactionManager = (PlatformTransactionManager) Proxy.newProxyInstance(
+                PlatformTransactionManager.class.getClassLoader(), new Class<?>[]{PlatformTransactionManager.class},
+                (proxy, method, args) -> "getTransaction".equals(method.getName())
+                        ? new SimpleTransactionStatus() : null);
+
+        SunriseSunsetBatchService service = new SunriseSunsetBatchService(repository, locationRepository,
+                new SunriseSunsetFetcher(provider, cache()),
+                new CacheInvalidator(cache(), cache(), cache(), cache(), cache(), new ChangeStamps()),
+                new ChangeFeed(16, 16, 1), new SunriseSunsetSpatialIndex(null, 0.1),
+                new TransactionTemplate(transactionManager), new SunriseSunsetKeys(4));
+        ReflectionTestUtils.setField(service, "parallelism", parallelism);
+        ReflectionTestUtils.setField(service, "maxItems", 1000);
+        return service;
+    }
+
+    private static <V> BoundedCache<V> cache() {
+        return new BoundedCache<>("test", 100, Duration.ofMinutes(10));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.lab6.service;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.dto.DeduplicationReport;
+import com.example.lab6.repository.SunriseSunsetKeyView;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SunriseSunsetDeduplicationServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 4, 4);
+
+    private final List<String> writes = new ArrayList<>();
+
+    @Test
+    void testDeduplicate_MergesIntoOldestRow() {
+        SunriseSunsetDeduplicationService service = service(List.of(
+                new SunriseSunsetKeyView(1L, 53.9, 27.5667, DATE, 539000L, 275667L),
+                new SunriseSunsetKeyView(2L, 53.90001, 27.56668, DATE, 539000L, 275667L),
+                new SunriseSunsetKeyView(3L, 53.9, 27.5667, DATE.plusDays(1), 539000L, 275667L),
+                new SunriseSunsetKeyView(4L, 53.89999, 27.5667, DATE, null, null)));
+
+        DeduplicationReport report = service.deduplicate();
+
+        assertEquals(new DeduplicationReport(4, 1, 2, 0), report);
+        assertEquals(List.of("mergeInto 1 [2, 4]"), writes);
+    }
+
+    @Test
+    void testDeduplicate_BackfillsKeysWithSetBasedUpdates() {
+        SunriseSunsetDeduplicationService service = service(List.of(
+                new SunriseSunsetKeyView(1L, 53.9, 27.5667, DATE, null, null),
+                new SunriseSunsetKeyView(2L, 52.4345, 30.9754, DATE, 52435L, 30975L),
+                new SunriseSunsetKeyView(3L, 52.4345, 30.9754, DATE.plusDays(1), null, null)));
+
+        DeduplicationReport report = service.deduplicate();
+
+        assertEquals(new DeduplicationReport(3, 0, 0, 3), report);
+        // One statement each, however many rows need a key
+        assertEquals(List.of("clearStaleKeys 10000.0", "fillMissingKeys 10000.0"), writes);
+    }
+
+    @Test
+    void testDeduplicate_CleanTableWritesNothing() {
+        SunriseSunsetDeduplicationService service = service(List.of(
+                new SunriseSunsetKeyView(1L, 53.9, 27.5667, DATE, 539000L, 275667L),
+                new SunriseSunsetKeyView(2L, 52.4345, 30.9754, DATE, 524345L, 309754L)));
+
+        DeduplicationReport report = service.deduplicate();
+
+        assertEquals(new DeduplicationReport(2, 0, 0, 0), report);
+        assertTrue(writes.isEmpty());
+    }
+
+    private SunriseSunsetDeduplicationService service(List<SunriseSunsetKeyView> rows) {
+        SunriseSunsetRepository repository = (SunriseSunsetRepository) Proxy.newProxyInstance(
+                SunriseSunsetRepository.class.getClassLoader(), new Class<?>[]{SunriseSunsetRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAllKeyViews" -> rows;
+                    case "mergeInto" -> {
+                        writes.add("mergeInto " + args[0] + " " + args[1]);
+                        yield null;
+                    }
+                    case "clearStaleKeys", "fillMissingKeys" -> {
+                        writes.add(method.getName() + " " + args[0]);
+                        yield 0;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        CacheInvalidator cacheInvalidator = new CacheInvalidator(cache(), cache(), cache(), cache(), cache(),
+                new ChangeStamps());
+        return new SunriseSunsetDeduplicationService(repository, new SunriseSunsetKeys(4), cacheInvalidator,
+                new ChangeFeed(16, 16, 1), new SunriseSunsetSpatialIndex(null, 0.1));
+    }
+
+    private static <V> BoundedCache<V> cache() {
+        return new BoundedCache<>("test", 100, Duration.ofMinutes(10));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.lab6.service;
+
+import com.example.lab6.repository.SunriseSunsetExportRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SunriseSunsetExportServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 4, 4);
+    private static final LocalTime SUNRISE = LocalTime.of(3, 48, 6);
+    private static final LocalTime SUNSET = LocalTime.of(18, 9, 46);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final SunriseSunsetExportService exportService = new SunriseSunsetExportService(null, objectMapper);
+
+    @Test
+    void testWriteNdjson_OneLinePerRecordWithItsLocationIds() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.writeNdjson(Stream.of(row(1, 10L), row(1, 11L), row(2, null), row(3, 12L)), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, written);
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals("2025-04-04", first.get("date").asText());
+        assertEquals("03:48:06", first.get("sunrise").asText());
+        assertEquals("[10,11]", first.get("locationIds").toString());
+        assertEquals("[]", objectMapper.readTree(lines[1]).get("locationIds").toString());
+        assertEquals("[12]", objectMapper.readTree(lines[2]).get("locationIds").toString());
+    }
+
+    @Test
+    void testWriteNdjson_EmptyTableWritesNothing() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, exportService.writeNdjson(Stream.empty(), out));
+        assertEquals(0, out.size());
+    }
+
+    /**
+     * 300k records with two locations each, gzipped into a byte counter. Heap use is sampled after a GC
+     * early and late in the stream; it must not grow with the number of rows already written.
+     * Also passes under -Xmx32m.
+     */
+    @Test
+    void testWriteNdjson_MemoryStaysFlatForHundredsOfThousandsOfRows() throws IOException {
+        int records = 300_000;
+        long[] usedAt = new long[2];
+        Stream<SunriseSunsetExportRow> rows = LongStream.range(0, records * 2L)
+                .peek(i -> {
+                    if (i == 20_000) {
+                        usedAt[0] = usedHeapAfterGc();
+                    } else if (i == records * 2L - 20_000) {
+                        usedAt[1] = usedHeapAfterGc();
+                    }
+                })
+                .mapToObj(i -> row(i / 2 + 1, 1_000 + i % 2));
+        CountingOutputStream counter = new CountingOutputStream();
+
+        long written;
+        try (GZIPOutputStream gzip = new GZIPOutputStream(counter, 64 * 1024)) {
+            written = exportService.writeNdjson(rows, gzip);
+        }
+
+        assertEquals(records, written);
+        assertTrue(counter.count.get() > 0);
+        long growth = usedAt[1] - usedAt[0];
+        assertTrue(growth < 8 * 1024 * 1024, "heap grew by " + growth + " bytes while streaming");
+    }
+
+    private static SunriseSunsetExportRow row(long id, Long locationId) {
+        return new SunriseSunsetExportRow(id, 54.3, 30.24, DATE, SUNRISE, SUNSET, locationId);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void write(int b) {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count.addAndGet(len);
+        }
+    }
+}
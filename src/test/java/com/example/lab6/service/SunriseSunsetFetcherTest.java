@@ -0,0 +1,102 @@
+package com.example.lab6.service;
+
+import com.example.lab6.cache.BoundedCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SunriseSunsetFetcherTest {
+
+    private static final Map<String, Object> OK_RESPONSE =
+            Map.of("status", "OK", "results", Map.of("sunrise", "4:00:00 AM", "sunset", "6:00:00 PM"));
+
+    private final BoundedCache<Map<String, Object>> cache =
+            new BoundedCache<>("sunrise-sunset-fetch", 100, Duration.ofSeconds(30));
+
+    @Test
+    void testFetch_ConcurrentIdenticalRequestsShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        SunriseSunsetFetcher fetcher = new SunriseSunsetFetcher((lat, lng, date) -> {
+            calls.incrementAndGet();
+            await(release);
+            return OK_RESPONSE;
+        }, cache);
+
+        int clients = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Map<String, Object>>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                results.add(executor.submit(() -> fetcher.fetch(54.3, 30.24, "2025-04-04")));
+            }
+            while (fetcher.inFlightCount() == 0) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Map<String, Object>> result : results) {
+                assertSame(OK_RESPONSE, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, fetcher.inFlightCount());
+    }
+
+    @Test
+    void testFetch_ServesRecentResultFromCache() {
+        AtomicInteger calls = new AtomicInteger();
+        SunriseSunsetFetcher fetcher = new SunriseSunsetFetcher((lat, lng, date) -> {
+            calls.incrementAndGet();
+            return OK_RESPONSE;
+        }, cache);
+
+        fetcher.fetch(54.3, 30.24, "2025-04-04");
+        fetcher.fetch(54.3000001, 30.2400001, "2025-04-04");
+        fetcher.fetch(54.3, 30.24, "2025-04-05");
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testFetch_FailureIsNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        SunriseSunsetFetcher fetcher = new SunriseSunsetFetcher((lat, lng, date) -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("upstream down");
+        }, cache);
+
+        assertThrows(IllegalStateException.class, () -> fetcher.fetch(54.3, 30.24, "2025-04-04"));
+        assertThrows(IllegalStateException.class, () -> fetcher.fetch(54.3, 30.24, "2025-04-04"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testNormalizeDate_TodayResolvesToUtcDate() {
+        assertEquals(SunriseSunsetFetcher.normalizeDate(null), SunriseSunsetFetcher.normalizeDate("today"));
+        assertEquals("2025-04-04", SunriseSunsetFetcher.normalizeDate(" 2025-04-04 "));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.lab6.service;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.dto.SunriseSunsetImportReport;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SunriseSunsetImportServiceTest {
+
+    private final SunriseSunsetImportService importService =
+            new SunriseSunsetImportService(null, null, null, null, null, null, new ObjectMapper());
+
+    @Test
+    void testReadChunks_CsvRowsAreValidatedAndChunked() throws IOException {
+        String csv = """
+                latitude,longitude,date,sunrise,sunset,locationIds
+                54.3,30.24,2025-04-04,03:48:06,18:09:46,1;2
+                54.3,30.24,2025-04-05,3:45:40 AM,6:11:42 PM,
+                91,30.24,2025-04-06,03:43:00,18:13:00,
+                54.3,30.24,2025-13-01,03:43:00,18:13:00,
+                54.3,30.24,2025-04-07,03:41:00
+                54.3,30.24,2025-04-08,03:39:00,18:17:00,x
+                54.3,30.24,2025-04-09,03:37:00,18:19:00,3
+                """;
+        List<List<SunriseSunsetImportService.ImportRow>> chunks = new ArrayList<>();
+
+        SunriseSunsetImportReport report = importService.readChunks(new BufferedReader(new StringReader(csv)),
+                SunriseSunsetImportService.Format.CSV, 2, chunk -> chunks.add(List.copyOf(chunk)));
+
+        assertEquals(3, report.acceptedRows());
+        assertEquals(4, report.rejectedRows());
+        assertEquals(2, report.chunksWritten());
+        assertEquals(List.of(2, 1), chunks.stream().map(List::size).toList());
+        assertEquals(4, report.errors().size());
+        assertTrue(report.errors().get(0).startsWith("line 4: latitude 91"));
+
+        SunriseSunsetImportService.ImportRow first = chunks.get(0).get(0);
+        assertEquals(LocalDate.of(2025, 4, 4), first.date());
+        assertEquals(LocalTime.of(3, 48, 6), first.sunrise());
+        assertEquals(List.of(1L, 2L), first.locationIds());
+        assertEquals(LocalTime.of(18, 11, 42), chunks.get(0).get(1).sunset());
+    }
+
+    @Test
+    void testReadChunks_CsvWithoutRequiredColumnIsRejected() {
+        BufferedReader reader = new BufferedReader(new StringReader("latitude,longitude,date\n1,2,2025-04-04\n"));
+
+        assertThrows(IllegalArgumentException.class, () -> importService.readChunks(reader,
+                SunriseSunsetImportService.Format.CSV, 10, chunk -> { }));
+    }
+
+    @Test
+    void testReadChunks_NdjsonAcceptsExportFormat() throws IOException {
+        String ndjson = """
+                {"id":7,"latitude":54.3,"longitude":30.24,"date":"2025-04-04","sunrise":"03:48:06",\
+                "sunset":"18:09:46","locationIds":[4]}
+                {"latitude":54.3,"longitude":30.24,"date":"2025-04-05"}
+                not json
+                """;
+        List<SunriseSunsetImportService.ImportRow> rows = new ArrayList<>();
+
+        SunriseSunsetImportReport report = importService.readChunks(new BufferedReader(new StringReader(ndjson)),
+                SunriseSunsetImportService.Format.NDJSON, 10, rows::addAll);
+
+        assertEquals(1, report.acceptedRows());
+        assertEquals(2, report.rejectedRows());
+        assertEquals(List.of(4L), rows.get(0).locationIds());
+        assertEquals(LocalTime.of(18, 9, 46), rows.get(0).sunset());
+    }
+
+    @Test
+    void testReadChunks_MillionRowsAreStreamedInChunks() throws IOException {
+        int rows = 1_000_000;
+        long[] largestChunk = new long[1];
+
+        SunriseSunsetImportReport report = importService.readChunks(new BufferedReader(generatedCsv(rows)),
+                SunriseSunsetImportService.Format.CSV, 1000,
+                chunk -> largestChunk[0] = Math.max(largestChunk[0], chunk.size()));
+
+        assertEquals(rows, report.acceptedRows());
+        assertEquals(1000, report.chunksWritten());
+        assertEquals(1000, largestChunk[0]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWriteChunk_RepeatedNaturalKeyIsWrittenOnce() {
+        List<List<SunriseSunset>> upserts = new ArrayList<>();
+        SunriseSunsetRepository repository = (SunriseSunsetRepository) Proxy.newProxyInstance(
+                SunriseSunsetRepository.class.getClassLoader(), new Class<?>[]{SunriseSunsetRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("upsertAll")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<SunriseSunset> batch = (List<SunriseSunset>) args[0];
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).setId(i + 1L);
+                    }
+                    upserts.add(List.copyOf(batch));
+                    return batch;
+                });
+        SunriseSunsetImportService writer = new SunriseSunsetImportService(repository, new SunriseSunsetKeys(4),
+                new CacheInvalidator(cache(), cache(), cache(), cache(), cache(), new ChangeStamps()),
+                new ChangeFeed(16, 16, 1), new SunriseSunsetSpatialIndex(null, 0.1), null, new ObjectMapper());
+        LocalDate date = LocalDate.of(2025, 4, 4);
+
+        writer.writeChunk(List.of(
+                new SunriseSunsetImportService.ImportRow(54.3, 30.24, date, LocalTime.of(3, 48),
+                        LocalTime.of(18, 9), List.of(1L)),
+                new SunriseSunsetImportService.ImportRow(54.3, 30.24, date.plusDays(1), LocalTime.of(3, 46),
+                        LocalTime.of(18, 11), List.of()),
+                new SunriseSunsetImportService.ImportRow(54.30001, 30.24, date, LocalTime.of(3, 50),
+                        LocalTime.of(18, 10), List.of(2L))));
+
+        assertEquals(1, upserts.size());
+        List<SunriseSunset> written = upserts.get(0);
+        assertEquals(2, written.size());
+        Set<String> keys = new HashSet<>();
+        written.forEach(row -> keys.add(row.getLatitudeKey() + "," + row.getLongitudeKey() + "," + row.getDate()));
+        assertEquals(2, keys.size());
+        SunriseSunset repeated = written.get(0);
+        assertEquals(LocalTime.of(3, 50), repeated.getSunrise());
+        assertEquals(Set.of(1L, 2L), repeated.getLocations().stream().map(Location::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    private static <V> BoundedCache<V> cache() {
+        return new BoundedCache<>("test", 100, Duration.ofMinutes(10));
+    }
+
+    /**
+     * CSV produced on demand, so the input itself is never held in memory.
+     */
+    private static Reader generatedCsv(int rows) {
+        return new Reader() {
+            private int row = -1;
+            private String current = "";
+            private int position;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (position == current.length()) {
+                    if (row == rows) {
+                        return -1;
+                    }
+                    current = row < 0
+                            ? "latitude,longitude,date,sunrise,sunset\n"
+                            : (row % 180 - 90) + ",30.24," + LocalDate.of(2025, 1, 1).plusDays(row % 365)
+                            + ",03:48:06,18:09:46\n";
+                    row++;
+                    position = 0;
+                }
+                int count = Math.min(length, current.length() - position);
+                current.getChars(position, position + count, buffer, offset);
+                position += count;
+                return count;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.lab6.service;
+
+import com.example.lab6.model.SunriseSunset;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SunriseSunsetKeysTest {
+
+    @Test
+    void testQuantize_NearbyCoordinatesShareAKey() {
+        SunriseSunsetKeys keys = new SunriseSunsetKeys(4);
+
+        assertEquals(keys.quantize(54.30001), keys.quantize(54.29996));
+        assertNotEquals(keys.quantize(54.3001), keys.quantize(54.3));
+        assertEquals(-302400, keys.quantize(-30.24));
+    }
+
+    @Test
+    void testApplyKey_SetsBothCoordinateKeys() {
+        SunriseSunset sunriseSunset = new SunriseSunset();
+        sunriseSunset.setLatitude(54.3);
+        sunriseSunset.setLongitude(30.24);
+
+        new SunriseSunsetKeys(2).applyKey(sunriseSunset);
+
+        assertEquals(5430L, (long) sunriseSunset.getLatitudeKey());
+        assertEquals(3024L, (long) sunriseSunset.getLongitudeKey());
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.lab6.service;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.dto.PrecomputeJobRequest;
+import com.example.lab6.dto.PrecomputeJobStatus;
+import com.example.lab6.model.Location;
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.provider.SunriseSunsetProvider;
+import com.example.lab6.repository.LocationCoordinates;
+import com.example.lab6.repository.LocationRepository;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SunriseSunsetPrecomputeServiceTest {
+
+    private static final Map<String, Object> OK_RESPONSE =
+            Map.of("status", "OK", "results", Map.of("sunrise", "4:00:00 AM", "sunset", "6:00:00 PM"));
+    private static final LocalDate FROM = LocalDate.of(2025, 4, 1);
+
+    private final ScheduledExecutorService precomputeExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService upstream = Executors.newCachedThreadPool();
+    private final List<List<SunriseSunset>> upserts = new ArrayList<>();
+    private final List<LocationCoordinates> stored = List.of(
+            new LocationCoordinates(1L, 54.3, 30.24),
+            new LocationCoordinates(2L, 53.9, 27.5667),
+            new LocationCoordinates(3L, null, null),
+            new LocationCoordinates(4L, 54.3, 30.24));
+
+    @AfterEach
+    void tearDown() {
+        precomputeExecutor.shutdownNow();
+        upstream.shutdownNow();
+    }
+
+    @Test
+    void testSubmit_WritesAllRowsInChunksAndCountsProgress() throws InterruptedException {
+        SunriseSunsetPrecomputeService service = service(immediate(new AtomicInteger()), 3, 8, 0);
+
+        PrecomputeJobStatus submitted = service.submit(new PrecomputeJobRequest(List.of(
+                new PrecomputeJobRequest.Target(1L, null, null),
+                new PrecomputeJobRequest.Target(3L, 52.4345, 30.9754)), FROM, FROM.plusDays(4), null));
+        PrecomputeJobStatus status = await(service, submitted.id());
+
+        assertEquals("COMPLETED", status.state());
+        assertEquals(2, status.locations());
+        assertEquals(10, status.totalRows());
+        assertEquals(10, status.processedRows());
+        assertEquals(10, status.savedRows());
+        assertEquals(0, status.failedRows());
+        assertEquals(4, status.chunksWritten());
+        assertEquals(List.of(3, 3, 3, 1), upserts.stream().map(List::size).toList());
+        assertEquals(30.9754, upserts.get(2).get(2).getLongitude());
+    }
+
+    @Test
+    void testSubmit_FailedFetchesAreCountedAndReported() throws InterruptedException {
+        SunriseSunsetProvider provider = (latitude, longitude, date) -> {
+            if (date.equals(FROM.plusDays(1).toString())) {
+                throw new IllegalStateException("upstream down");
+            }
+            return date.equals(FROM.plusDays(2).toString()) ? Map.of("status", "INVALID_DATE") : OK_RESPONSE;
+        };
+        SunriseSunsetPrecomputeService service = service(provider, 10, 8, 0);
+
+        PrecomputeJobStatus status = await(service, service.submit(new PrecomputeJobRequest(
+                List.of(new PrecomputeJobRequest.Target(2L, null, null)), FROM, FROM.plusDays(3), null)).id());
+
+        assertEquals("COMPLETED", status.state());
+        assertEquals(4, status.processedRows());
+        assertEquals(2, status.savedRows());
+        assertEquals(2, status.failedRows());
+        assertEquals(2, status.errors().size());
+        assertTrue(status.errors().get(0).contains("upstream down"), status.errors().toString());
+        assertTrue(status.errors().get(1).contains("INVALID_DATE"), status.errors().toString());
+    }
+
+    @Test
+    void testSubmit_LocationsSharingCoordinatesAreWrittenOnce() throws InterruptedException {
+        SunriseSunsetPrecomputeService service = service(immediate(new AtomicInteger()), 10, 8, 0);
+
+        PrecomputeJobStatus status = await(service, service.submit(new PrecomputeJobRequest(List.of(
+                new PrecomputeJobRequest.Target(1L, null, null),
+                new PrecomputeJobRequest.Target(4L, null, null)), FROM, FROM, null)).id());
+
+        assertEquals("COMPLETED", status.state());
+        assertEquals(1, upserts.get(0).size());
+        assertEquals(Set.of(1L, 4L), upserts.get(0).get(0).getLocations().stream().map(Location::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    void testSubmit_AllLocationsUsesStoredCoordinatesAndRejectsMissingOnes() throws InterruptedException {
+        SunriseSunsetPrecomputeService service = service(immediate(new AtomicInteger()), 10, 8, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> service.submit(new PrecomputeJobRequest(
+                List.of(new PrecomputeJobRequest.Target(3L, null, null)), FROM, FROM, null)));
+        assertThrows(IllegalArgumentException.class, () -> service.submit(new PrecomputeJobRequest(
+                List.of(new PrecomputeJobRequest.Target(99L, 1.0, 2.0)), FROM, FROM, null)));
+
+        PrecomputeJobStatus status = await(service, service.submitForAllLocations(FROM).id());
+
+        // Location 3 has no record to take coordinates from and is skipped
+        assertEquals(3, status.locations());
+        assertEquals(3, status.processedRows());
+    }
+
+    @Test
+    void testCancel_QueuedJobNeverRuns() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        SunriseSunsetPrecomputeService service = service(immediate(calls), 10, 8, 0);
+
+        PrecomputeJobStatus submitted = service.submit(new PrecomputeJobRequest(
+                List.of(new PrecomputeJobRequest.Target(1L, null, null)), FROM, FROM.plusDays(9),
+                Instant.now().plusSeconds(60)));
+        assertEquals("QUEUED", submitted.state());
+
+        assertEquals("CANCELLED", service.cancel(submitted.id()).orElseThrow().state());
+        assertEquals("CANCELLED", await(service, submitted.id()).state());
+        assertEquals(0, calls.get());
+        assertTrue(upserts.isEmpty());
+    }
+
+    @Test
+    void testCancel_RunningJobWritesPendingRowsAndStops() throws InterruptedException {
+        CountDownLatch firstCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SunriseSunsetProvider provider = new SunriseSunsetProvider() {
+            @Override
+            public Map<String, Object> fetch(double latitude, double longitude, String date) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Map<String, Object>> fetchAsync(double latitude, double longitude,
+                                                                     String date) {
+                firstCall.countDown();
+                return CompletableFuture.supplyAsync(() -> {
+                    awaitLatch(release);
+                    return OK_RESPONSE;
+                }, upstream);
+            }
+        };
+        SunriseSunsetPrecomputeService service = service(provider, 100, 1, 0);
+
+        String id = service.submit(new PrecomputeJobRequest(List.of(new PrecomputeJobRequest.Target(1L, null, null)),
+                FROM, FROM.plusDays(9), null)).id();
+        assertTrue(firstCall.await(5, TimeUnit.SECONDS));
+        service.cancel(id);
+        release.countDown();
+        PrecomputeJobStatus status = await(service, id);
+
+        // The row already in flight when the job noticed the request is still written
+        assertEquals("CANCELLED", status.state());
+        assertTrue(status.processedRows() < 10, "processed " + status.processedRows());
+        assertEquals(status.processedRows(), status.savedRows());
+        assertEquals(1, upserts.size());
+    }
+
+    @Test
+    void testRun_ProviderCallsAreBoundedByParallelism() throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        SunriseSunsetProvider provider = new SunriseSunsetProvider() {
+            @Override
+            public Map<String, Object> fetch(double latitude, double longitude, String date) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Map<String, Object>> fetchAsync(double latitude, double longitude,
+                                                                     String date) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return CompletableFuture.supplyAsync(() -> {
+                    sleep(5);
+                    inFlight.decrementAndGet();
+                    return OK_RESPONSE;
+                }, upstream);
+            }
+        };
+        SunriseSunsetPrecomputeService service = service(provider, 500, 3, 0);
+
+        PrecomputeJobStatus status = await(service, service.submit(new PrecomputeJobRequest(
+                List.of(new PrecomputeJobRequest.Target(1L, null, null)), FROM, FROM.plusDays(39), null)).id());
+
+        assertEquals(40, status.savedRows());
+        assertTrue(maxInFlight.get() <= 3, "max in flight " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "calls never overlapped");
+    }
+
+    @Test
+    void testRun_ProviderCallsArePaced() throws InterruptedException {
+        ConcurrentLinkedQueue<Long> callTimes = new ConcurrentLinkedQueue<>();
+        SunriseSunsetProvider provider = (latitude, longitude, date) -> {
+            callTimes.add(System.nanoTime());
+            return OK_RESPONSE;
+        };
+        SunriseSunsetPrecomputeService service = service(provider, 100, 8, 50);
+
+        await(service, service.submit(new PrecomputeJobRequest(List.of(new PrecomputeJobRequest.Target(1L, null, null)),
+                FROM, FROM.plusDays(10), null)).id());
+
+        List<Long> times = List.copyOf(callTimes);
+        assertEquals(11, times.size());
+        long elapsedMillis = (times.get(10) - times.get(0)) / 1_000_000;
+        assertTrue(elapsedMillis >= 190, "11 calls at 50/s took " + elapsedMillis + " ms");
+    }
+
+    private static SunriseSunsetProvider immediate(AtomicInteger calls) {
+        return (latitude, longitude, date) -> {
+            calls.incrementAndGet();
+            return OK_RESPONSE;
+        };
+    }
+
+    private static PrecomputeJobStatus await(SunriseSunsetPrecomputeService service, String id)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            PrecomputeJobStatus status = service.getStatus(id).orElseThrow();
+            if (status.finishedAt() != null) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job " + id + " did not finish");
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private SunriseSunsetPrecomputeService service(SunriseSunsetProvider provider, int chunkSize, int parallelism,
+                                                   double maxRequestsPerSecond) {
+        SunriseSunsetRepository repository = (SunriseSunsetRepository) Proxy.newProxyInstance(
+                SunriseSunsetRepository.class.getClassLoader(), new Class<?>[]{SunriseSunsetRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("upsertAll")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<SunriseSunset> batch = (List<SunriseSunset>) args[0];
+                    Set<String> keys = new HashSet<>();
+                    for (SunriseSunset sunriseSunset : batch) {
+                        if (!keys.add(sunriseSunset.getLatitudeKey() + "," + sunriseSunset.getLongitudeKey()
+                                + "," + sunriseSunset.getDate())) {
+                            throw new IllegalStateException("ON CONFLICT DO UPDATE cannot affect row a second time");
+                        }
+                        sunriseSunset.setId(upserts.size() * 1000L + keys.size());
+                    }
+                    upserts.add(List.copyOf(batch));
+                    return batch;
+                });
+        LocationRepository locationRepository = (LocationRepository) Proxy.newProxyInstance(
+                LocationRepository.class.getClassLoader(), new Class<?>[]{LocationRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAllCoordinates" -> stored;
+                    case "findCoordinatesByIdIn" -> stored.stream()
+                            .filter(location -> ((Collection<Long>) args[0]).contains(location.locationId()))
+                            .toList();
+                    case "findAllById" -> {
+                        List<Location> found = new ArrayList<>();
+                        for (Long id : (Iterable<Long>) args[0]) {
+                            Location location = new Location();
+                            location.setId(id);
+                            found.add(location);
+                        }
+                        yield found;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        PlatformTransactionManager transactionManager = (PlatformTransactionManager) Proxy.newProxyInstance(
+                PlatformTransactionManager.class.getClassLoader(), new Class<?>[]{PlatformTransactionManager.class},
+                (proxy, method, args) -> "getTransaction".equals(method.getName())
+                        ? new SimpleTransactionStatus() : null);
+
+        SunriseSunsetPrecomputeService service = new SunriseSunsetPrecomputeService(repository, locationRepository,
+                new SunriseSunsetFetcher(provider, cache()),
+                new CacheInvalidator(cache(), cache(), cache(), cache(), cache(), new ChangeStamps()),
+                new ChangeFeed(16, 16, 1), new SunriseSunsetSpatialIndex(null, 0.1),
+                new TransactionTemplate(transactionManager), precomputeExecutor, new SunriseSunsetKeys(4));
+        ReflectionTestUtils.setField(service, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(service, "parallelism", parallelism);
+        ReflectionTestUtils.setField(service, "maxDays", 366);
+        ReflectionTestUtils.setField(service, "retainedJobs", 100);
+        ReflectionTestUtils.setField(service, "maxRequestsPerSecond", maxRequestsPerSecond);
+        return service;
+    }
+
+    private static <V> BoundedCache<V> cache() {
+        return new BoundedCache<>("test", 100, Duration.ofMinutes(10));
+    }
+}
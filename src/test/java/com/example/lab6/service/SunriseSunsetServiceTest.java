@@ -0,0 +1,132 @@
+package com.example.lab6.service;
+
+import com.example.lab6.cache.BoundedCache;
+import com.example.lab6.model.SunriseSunset;
+import com.example.lab6.provider.SunriseSunsetProvider;
+import com.example.lab6.repository.SunriseSunsetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SunriseSunsetServiceTest {
+
+    @Test
+    void testToEntity_ParsesApiDateAndTimes() {
+        Map<String, Object> response = Map.of("status", "OK",
+                "results", Map.of("sunrise", "3:48:06 AM", "sunset", "6:09:46 PM"));
+
+        SunriseSunset entity = SunriseSunsetService.toEntity(response, 54.3, 30.24, "2025-04-04");
+
+        assertEquals(LocalDate.of(2025, 4, 4), entity.getDate());
+        assertEquals(LocalTime.of(3, 48, 6), entity.getSunrise());
+        assertEquals(LocalTime.of(18, 9, 46), entity.getSunset());
+        assertEquals(54.3, entity.getLatitude());
+    }
+
+    @Test
+    void testToEntity_TodayIsStoredAsTheUtcDate() {
+        Map<String, Object> response = Map.of("status", "OK",
+                "results", Map.of("sunrise", "12:00:01 AM", "sunset", "12:00:01 AM"));
+
+        assertEquals(LocalDate.now(ZoneOffset.UTC), SunriseSunsetService.toEntity(response, 0, 0, "today").getDate());
+        assertEquals(LocalDate.now(ZoneOffset.UTC), SunriseSunsetService.toEntity(response, 0, 0, null).getDate());
+    }
+
+    @Test
+    void testParseTime_AcceptsIsoTimestamps() {
+        assertEquals(LocalTime.of(5, 5, 35), SunriseSunsetService.parseTime("2015-05-21T05:05:35+00:00"));
+        assertEquals(LocalTime.of(2, 5, 35), SunriseSunsetService.parseTime("2015-05-21T05:05:35+03:00"));
+    }
+
+    @Test
+    void testToResponse_RoundTripsThroughToEntity() {
+        SunriseSunset stored = new SunriseSunset();
+        stored.setDate(LocalDate.of(2025, 4, 4));
+        stored.setSunrise(LocalTime.of(3, 48, 6));
+        stored.setSunset(LocalTime.of(18, 9, 46));
+
+        Map<String, Object> response = SunriseSunsetService.toResponse(stored);
+        SunriseSunset parsed = SunriseSunsetService.toEntity(response, 0, 0, "2025-04-04");
+
+        assertEquals("OK", response.get("status"));
+        assertEquals(stored.getSunrise(), parsed.getSunrise());
+        assertEquals(stored.getSunset(), parsed.getSunset());
+    }
+
+    @Test
+    void testParseDate_InvalidDateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SunriseSunsetService.parseDate("04.04.2025"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetSunriseSunsetAsync_SavesOffTheHttpClientThreads() {
+        Map<String, Object> response = Map.of("status", "OK",
+                "results", Map.of("sunrise", "3:48:06 AM", "sunset", "6:09:46 PM"));
+        AtomicReference<String> savingThread = new AtomicReference<>();
+        SunriseSunsetRepository repository = (SunriseSunsetRepository) Proxy.newProxyInstance(
+                SunriseSunsetRepository.class.getClassLoader(), new Class<?>[]{SunriseSunsetRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByLatitudeKeyAndLongitudeKeyAndDate" -> Optional.empty();
+                    case "upsertAll" -> {
+                        savingThread.set(Thread.currentThread().getName());
+                        List<SunriseSunset> batch = (List<SunriseSunset>) args[0];
+                        batch.get(0).setId(1L);
+                        yield batch;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        PlatformTransactionManager transactionManager = (PlatformTransactionManager) Proxy.newProxyInstance(
+                PlatformTransactionManager.class.getClassLoader(), new Class<?>[]{PlatformTransactionManager.class},
+                (proxy, method, args) -> "getTransaction".equals(method.getName())
+                        ? new SimpleTransactionStatus() : null);
+        ExecutorService http = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "http"));
+        ExecutorService save = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "save"));
+        SunriseSunsetProvider provider = new SunriseSunsetProvider() {
+            @Override
+            public Map<String, Object> fetch(double latitude, double longitude, String date) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Map<String, Object>> fetchAsync(double latitude, double longitude,
+                                                                     String date) {
+                return CompletableFuture.supplyAsync(() -> response, http);
+            }
+        };
+        try {
+            SunriseSunsetService service = new SunriseSunsetService(repository, null,
+                    new SunriseSunsetFetcher(provider, cache()), cache(), cache(),
+                    new CacheInvalidator(cache(), cache(), cache(), cache(), cache(), new ChangeStamps()),
+                    new ChangeFeed(16, 16, 1), new SunriseSunsetSpatialIndex(null, 0.1),
+                    new TransactionTemplate(transactionManager), new SunriseSunsetKeys(4), save, new Pages(100, 500));
+
+            assertEquals(response, service.getSunriseSunsetAsync(54.3, 30.24, "2025-04-04", null, null).join());
+            assertEquals("save", savingThread.get());
+        } finally {
+            http.shutdownNow();
+            save.shutdownNow();
+        }
+    }
+
+    private static <V> BoundedCache<V> cache() {
+        return new BoundedCache<>("test", 100, Duration.ofMinutes(10));
+    }
+}
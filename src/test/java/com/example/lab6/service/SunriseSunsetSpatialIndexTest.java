@@ -0,0 +1,97 @@
+package com.example.lab6.service;
+
+import com.example.lab6.model.SunriseSunset;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SunriseSunsetSpatialIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 4, 4);
+
+    private final SunriseSunsetSpatialIndex index = new SunriseSunsetSpatialIndex(null, 0.1);
+
+    @Test
+    void testWithin_ReturnsMatchesOfTheDateNearestFirst() {
+        index.index(List.of(record(1L, 54.30, 30.24, DATE), record(2L, 54.32, 30.24, DATE),
+                record(3L, 54.80, 30.24, DATE), record(4L, 54.30, 30.24, DATE.plusDays(1))));
+
+        List<SunriseSunsetSpatialIndex.Match> matches = index.within(DATE, 54.301, 30.24, 5);
+
+        assertEquals(List.of(1L, 2L), matches.stream().map(SunriseSunsetSpatialIndex.Match::id).toList());
+        assertTrue(matches.get(0).distanceKm() < 0.2);
+        assertEquals(2L, (long) index.nearest(DATE, 54.33, 30.24, 5).orElseThrow().id());
+        assertTrue(index.nearest(DATE, 10, 10, 50).isEmpty());
+    }
+
+    @Test
+    void testIndex_MovesUpdatedRecordsAndRemoveDropsThem() {
+        index.index(List.of(record(1L, 54.30, 30.24, DATE)));
+        index.index(List.of(record(1L, 53.90, 27.56, DATE)));
+
+        assertTrue(index.within(DATE, 54.30, 30.24, 5).isEmpty());
+        assertEquals(1L, (long) index.nearest(DATE, 53.90, 27.56, 5).orElseThrow().id());
+        assertEquals(1, index.size());
+
+        index.remove(List.of(1L));
+
+        assertTrue(index.nearest(DATE, 53.90, 27.56, 5).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testWithin_SearchesAcrossTheAntimeridianAndNearThePoles() {
+        index.index(List.of(record(1L, 0, 179.99, DATE), record(2L, 89.99, -120, DATE)));
+
+        assertEquals(1L, (long) index.nearest(DATE, 0, -179.99, 5).orElseThrow().id());
+        assertEquals(2L, (long) index.nearest(DATE, 89.99, 60, 5).orElseThrow().id());
+    }
+
+    @Test
+    void testWithin_MatchesBruteForce() {
+        Random random = new Random(42);
+        List<SunriseSunset> records = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            records.add(record(id, 50 + random.nextDouble() * 10, 20 + random.nextDouble() * 10, DATE));
+        }
+        index.index(records);
+
+        for (int query = 0; query < 100; query++) {
+            double latitude = 50 + random.nextDouble() * 10;
+            double longitude = 20 + random.nextDouble() * 10;
+            List<Long> expected = records.stream()
+                    .filter(r -> SunriseSunsetSpatialIndex.distanceKm(latitude, longitude, r.getLatitude(),
+                            r.getLongitude()) <= 20)
+                    .map(SunriseSunset::getId)
+                    .sorted()
+                    .toList();
+
+            List<Long> actual = index.within(DATE, latitude, longitude, 20).stream()
+                    .map(SunriseSunsetSpatialIndex.Match::id)
+                    .sorted()
+                    .toList();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testDistanceKm_OneDegreeOfLatitude() {
+        assertEquals(111.2, SunriseSunsetSpatialIndex.distanceKm(54, 30, 55, 30), 0.1);
+    }
+
+    private static SunriseSunset record(Long id, double latitude, double longitude, LocalDate date) {
+        SunriseSunset sunriseSunset = new SunriseSunset();
+        sunriseSunset.setId(id);
+        sunriseSunset.setLatitude(latitude);
+        sunriseSunset.setLongitude(longitude);
+        sunriseSunset.setDate(date);
+        return sunriseSunset;
+    }
+}